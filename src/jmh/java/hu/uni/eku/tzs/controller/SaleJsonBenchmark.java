@@ -0,0 +1,81 @@
+package hu.uni.eku.tzs.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni.eku.tzs.controller.dto.CustomerDto;
+import hu.uni.eku.tzs.controller.dto.EmployeeDto;
+import hu.uni.eku.tzs.controller.dto.ProductDto;
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SalePageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes and parses sale DTOs with an object mapper configured like the one Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaleJsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private ObjectMapper objectMapper;
+
+    private SaleDto sale;
+
+    private SalePageDto page;
+
+    private String saleJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<SaleDto> sales = IntStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(SaleJsonBenchmark::sale)
+                .collect(Collectors.toList());
+        sale = sales.get(0);
+        page = new SalePageDto(sales, PAGE_SIZE);
+        saleJson = objectMapper.writeValueAsString(sale);
+    }
+
+    private static SaleDto sale(int id) {
+        return SaleDto.builder()
+                .id(id)
+                .salesPerson(new EmployeeDto(id % 23, "Jane", "x", "Doe"))
+                .customer(new CustomerDto(id % 19759, "John", "x", "Doe"))
+                .product(new ProductDto(id % 504, "Hoverboard", 99.5))
+                .quantity(id % 1000)
+                .soldAt(LocalDateTime.of(2020, 9, 1, 12, 0).plusMinutes(id))
+                .build();
+    }
+
+    @Benchmark
+    public String writeSale() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(sale);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public byte[] writePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public SaleDto readSale() throws JsonProcessingException {
+        return objectMapper.readValue(saleJson, SaleDto.class);
+    }
+}
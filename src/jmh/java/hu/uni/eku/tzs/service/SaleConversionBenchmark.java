@@ -0,0 +1,117 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.controller.dto.BookDto;
+import hu.uni.eku.tzs.controller.dto.BookMapper;
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import hu.uni.eku.tzs.model.Author;
+import hu.uni.eku.tzs.model.Book;
+import hu.uni.eku.tzs.model.Sale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Converts pages of sales between their entity, model and DTO forms, the way a read of /sales/page does.
+ * Lives in the service package to reach the converters of {@link SaleManagerImpl}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaleConversionBenchmark {
+
+    @Param({"1", "100"})
+    int pageSize;
+
+    private AnnotationConfigApplicationContext mappers;
+
+    private SaleMapper saleMapper;
+
+    private BookMapper bookMapper;
+
+    private List<SaleEntity> entities;
+
+    private List<Sale> sales;
+
+    private List<SaleDto> dtos;
+
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        mappers = new AnnotationConfigApplicationContext("hu.uni.eku.tzs.controller.dto");
+        saleMapper = mappers.getBean(SaleMapper.class);
+        bookMapper = mappers.getBean(BookMapper.class);
+        entities = IntStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> SaleEntity.builder()
+                        .id(id)
+                        .salesPerson(new EmployeeEntity(id % 23, "Jane", "x", "Doe"))
+                        .customer(new CustomerEntity(id % 19759, "John", "x", "Doe"))
+                        .product(new ProductEntity(id % 504, "Hoverboard", 99.5))
+                        .quantity(id % 1000)
+                        .soldAt(LocalDateTime.of(2020, 9, 1, 12, 0).plusMinutes(id))
+                        .build())
+                .collect(Collectors.toList());
+        sales = entities2Models();
+        dtos = models2Dtos();
+        book = new Book("978-0-13-468599-1", new Author(1, "Joshua", "Bloch", "American"), "Effective Java", "en");
+    }
+
+    @TearDown
+    public void tearDown() {
+        mappers.close();
+    }
+
+    @Benchmark
+    public List<Sale> entities2Models() {
+        return entities.stream().map(SaleManagerImpl::convertSaleEntity2Model).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<SaleEntity> models2Entities() {
+        return sales.stream().map(SaleManagerImpl::convertSaleModel2Entity).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<SaleDto> models2Dtos() {
+        return sales.stream().map(saleMapper::sale2saleDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Sale> dtos2Models() {
+        return dtos.stream().map(saleMapper::saleDto2sale).collect(Collectors.toList());
+    }
+
+    /**
+     * The whole read path of a page, from the entities Hibernate loaded to the DTOs serialized.
+     */
+    @Benchmark
+    public List<SaleDto> entities2Dtos() {
+        return entities.stream()
+                .map(SaleManagerImpl::convertSaleEntity2Model)
+                .map(saleMapper::sale2saleDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public BookDto book2Dto() {
+        return bookMapper.book2bookDto(book);
+    }
+}
@@ -0,0 +1,101 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.App;
+import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
+import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records and reads sales through {@link SaleManager} against an embedded H2 database in MySQL mode,
+ * with the application context of the benchmark profile. Measures the whole write path: the existence check,
+ * the reference lookups, the insert, the rollup update and the change event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaleRecordBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+
+    private SaleManager saleManager;
+
+    private Sale sale;
+
+    private List<Sale> batch;
+
+    private int recordedId;
+
+    @Setup
+    public void setUp() throws SaleAlreadyExistsException {
+        context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run();
+        saleManager = context.getBean(SaleManager.class);
+        EmployeeEntity salesPerson = context.getBean(EmployeeRepository.class)
+                .save(new EmployeeEntity(0, "Jane", "x", "Doe"));
+        CustomerEntity customer = context.getBean(CustomerRepository.class)
+                .save(new CustomerEntity(0, "John", "x", "Doe"));
+        ProductEntity product = context.getBean(ProductRepository.class)
+                .save(new ProductEntity(0, "Hoverboard", 99.5));
+        sale = new Sale(0,
+                new Employee(salesPerson.getId(), salesPerson.getFirstName(), salesPerson.getMiddleInitial(),
+                        salesPerson.getLastName()),
+                new Customer(customer.getId(), customer.getFirstName(), customer.getMiddleInitial(),
+                        customer.getLastName()),
+                new Product(product.getId(), product.getName(), product.getPrice()),
+                3,
+                null);
+        batch = Collections.nCopies(BATCH_SIZE, sale);
+        recordedId = saleManager.record(sale).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Sale record() throws SaleAlreadyExistsException {
+        return saleManager.record(sale);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<SaleRecordResult> recordAll() {
+        return saleManager.recordAll(batch);
+    }
+
+    @Benchmark
+    public Sale readById() throws SaleNotFoundException {
+        return saleManager.readById(recordedId);
+    }
+}
@@ -0,0 +1,101 @@
+package hu.uni.eku.tzs.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram of one endpoint with log-linear buckets: values below 128 microseconds are
+ * recorded exactly, larger ones in 64 buckets per power of two, so every percentile is within 1.6% of the
+ * recorded value. Latencies above 2^36 microseconds (about 19 hours) are counted in the last bucket.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_MAGNITUDE = 36;
+
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records the latency of a request, a status outside of 2xx (or -1 for an I/O failure) is counted as an error.
+     */
+    void record(long nanos, int status) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        requests.increment();
+        max.accumulate(micros);
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    void addTo(LatencyHistogram total) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            total.counts.addAndGet(bucket, counts.get(bucket));
+        }
+        total.requests.add(requests.sum());
+        total.errors.add(errors.sum());
+        total.max.accumulate(max.get());
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * The latency below which the given quantile of the requests completed, the middle of its bucket.
+     */
+    long percentileMicros(double quantile) {
+        long total = requests.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(middleOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int bucketOf(long micros) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude <= SUB_BUCKET_BITS) {
+            return (int) micros;
+        }
+        int shift = Math.min(magnitude, MAX_MAGNITUDE) - SUB_BUCKET_BITS;
+        long subBucket = Math.min(micros >> shift, 2 * SUB_BUCKETS - 1);
+        return (int) (shift * SUB_BUCKETS + subBucket);
+    }
+
+    private static long middleOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,184 @@
+package hu.uni.eku.tzs.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import hu.uni.eku.tzs.App;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * HTTP load test of the REST API. Starts the application with the loadtest profile on an embedded H2 database
+ * in MySQL mode and a random port, unless the URL of a running instance is given, seeds it, runs the mixed
+ * workload for the warmup and then for the measured duration, and reports the requests per second and the
+ * p50/p95/p99/p999 latencies of every endpoint.
+ *
+ * <p>Options, passed as {@code name=value}:
+ * <ul>
+ *     <li>{@code url}: base URL of a running instance, the application is started in-process if omitted</li>
+ *     <li>{@code concurrency}: number of clients sending requests back to back, 16 by default</li>
+ *     <li>{@code warmup}, {@code duration}: ISO-8601 durations, PT10S and PT30S by default</li>
+ *     <li>{@code write-ratio}: share of the requests that write, 0.2 by default</li>
+ *     <li>{@code sales}: number of sales seeded, 10000 by default</li>
+ *     <li>{@code output}: JSON file the results are written to, target/loadtest-result.json by default</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99, 0.999};
+
+    private static final String[] PERCENTILES = {"p50", "p95", "p99", "p999"};
+
+    private static final String TOTAL = "Total";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        double writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.2"));
+        int sales = Integer.parseInt(options.getOrDefault("sales", "10000"));
+        Path output = Paths.get(options.getOrDefault("output", "target/loadtest-result.json"));
+
+        ConfigurableApplicationContext context = null;
+        URI baseUri;
+        if (options.containsKey("url")) {
+            baseUri = URI.create(options.get("url"));
+        } else {
+            context = new SpringApplicationBuilder(App.class)
+                    .profiles("loadtest")
+                    .properties("server.port=0")
+                    .run();
+            baseUri = URI.create(String.format("http://localhost:%s",
+                    context.getEnvironment().getProperty("local.server.port")));
+        }
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            Workload workload = new Workload(client, baseUri, writeRatio);
+            System.out.printf("Seeding %s with %d sales%n", baseUri, sales);
+            workload.seed(20, 1000, 200, 50, sales);
+
+            System.out.printf("Warming up for %s with %d clients%n", warmup, concurrency);
+            run(client, workload, clients, concurrency, warmup);
+            System.out.printf("Measuring for %s with %d clients, %.0f%% writes%n", duration, concurrency,
+                    writeRatio * 100);
+            Map<String, LatencyHistogram> histograms = run(client, workload, clients, concurrency, duration);
+
+            report(histograms, duration, output);
+        } finally {
+            clients.shutdownNow();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Options are passed as name=value, not %s", arg));
+            }
+            options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Runs the workload with the given number of clients, each sending its next request as soon as the previous
+     * one is answered, until the duration is over.
+     */
+    private static Map<String, LatencyHistogram> run(HttpClient client, Workload workload, ExecutorService clients,
+                                                     int concurrency, Duration duration) throws Exception {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        workload.endpoints().forEach(endpoint -> histograms.put(endpoint, new LatencyHistogram()));
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Random random = new Random(i);
+            tasks.add(() -> {
+                while (System.nanoTime() < deadline) {
+                    Workload.Operation operation = workload.next(random);
+                    HttpRequest request = operation.request(random);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    histograms.get(operation.getName()).record(System.nanoTime() - start, status);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> task : clients.invokeAll(tasks)) {
+            task.get();
+        }
+        return histograms;
+    }
+
+    private static void report(Map<String, LatencyHistogram> histograms, Duration duration, Path output)
+            throws IOException {
+        LatencyHistogram total = new LatencyHistogram();
+        histograms.values().forEach(histogram -> histogram.addTo(total));
+        Map<String, LatencyHistogram> rows = new LinkedHashMap<>(histograms);
+        rows.put(TOTAL, total);
+
+        double seconds = duration.toMillis() / 1000.0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        System.out.printf("%n%-32s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "RPS", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> row : rows.entrySet()) {
+            LatencyHistogram histogram = row.getValue();
+            if (histogram.getRequests() == 0) {
+                continue;
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", row.getKey());
+            result.put("requests", histogram.getRequests());
+            result.put("errors", histogram.getErrors());
+            result.put("rps", histogram.getRequests() / seconds);
+            StringBuilder latencies = new StringBuilder();
+            for (int i = 0; i < QUANTILES.length; i++) {
+                double millis = histogram.percentileMicros(QUANTILES[i]) / 1000.0;
+                result.put(PERCENTILES[i] + "Ms", millis);
+                latencies.append(String.format(" %9.2f", millis));
+            }
+            result.put("maxMs", histogram.getMaxMicros() / 1000.0);
+            results.add(result);
+            System.out.printf("%-32s %9d %7d %9.1f%s %9.2f%n", row.getKey(), histogram.getRequests(),
+                    histogram.getErrors(), histogram.getRequests() / seconds, latencies,
+                    histogram.getMaxMicros() / 1000.0);
+        }
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+        System.out.printf("%nResults are saved to %s%n", output.toAbsolutePath());
+    }
+}
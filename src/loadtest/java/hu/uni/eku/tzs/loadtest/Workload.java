@@ -0,0 +1,219 @@
+package hu.uni.eku.tzs.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The mixed read/write workload of the load test. The reference data and sales it works on are seeded first,
+ * then every request is picked at random: a write with the configured probability, otherwise a read, each
+ * weighted by how often the endpoint is called relative to the other endpoints of its kind.
+ */
+class Workload {
+
+    private static final String JSON = "application/json";
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private final HttpClient client;
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final double writeRatio;
+
+    private final List<Operation> reads = new ArrayList<>();
+
+    private final List<Operation> writes = new ArrayList<>();
+
+    private final List<Integer> employeeIds = new ArrayList<>();
+
+    private final List<Integer> customerIds = new ArrayList<>();
+
+    private final List<Integer> productIds = new ArrayList<>();
+
+    /**
+     * Suffix of the names and ISBNs of the records created during the run, unique within the database.
+     */
+    private final AtomicLong serial = new AtomicLong();
+
+    private int maxSeededSaleId;
+
+    Workload(HttpClient client, URI baseUri, double writeRatio) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.writeRatio = writeRatio;
+
+        read("GET /sales/page", 10, random -> get(String.format("/sales/page?after=%d&limit=20",
+                random.nextInt(maxSeededSaleId + 1))));
+        read("GET /sales/totals", 2, random -> get("/sales/totals?by=PRODUCT&top=10"));
+        read("GET /customers/{id}/sales", 10, random -> get(String.format("/customers/%d/sales?limit=20",
+                pick(customerIds, random))));
+        read("GET /customers", 1, random -> get("/customers"));
+        read("GET /products", 2, random -> get("/products"));
+        read("GET /products/top", 5, random -> get("/products/top?by=REVENUE&top=10"));
+        read("GET /employees", 1, random -> get("/employees"));
+        read("GET /employees/{id}/sales-total", 5, random -> get(String.format("/employees/%d/sales-total",
+                pick(employeeIds, random))));
+        read("GET /employees/leaderboard", 3, random -> get("/employees/leaderboard"));
+        read("GET /books", 2, random -> get("/books"));
+
+        write("POST /sales/", 10, random -> post("/sales/", sale(random)));
+        write("POST /sales/batch", 1, random -> post("/sales/batch", sales(10, random)));
+        write("POST /customers", 2, random -> post("/customers", person("Customer")));
+        write("POST /employees", 1, random -> post("/employees", person("Employee")));
+        write("POST /products", 1, random -> post("/products", product()));
+        write("POST /books", 1, random -> post("/books", book()));
+    }
+
+    /**
+     * Creates the employees, customers, products and books and records the sales the workload reads.
+     */
+    void seed(int employees, int customers, int products, int books, int sales)
+            throws IOException, InterruptedException {
+        for (int i = 0; i < employees; i++) {
+            employeeIds.add(send(post("/employees", person("Employee"))).get("id").asInt());
+        }
+        for (int i = 0; i < customers; i++) {
+            customerIds.add(send(post("/customers", person("Customer"))).get("id").asInt());
+        }
+        for (int i = 0; i < products; i++) {
+            productIds.add(send(post("/products", product())).get("id").asInt());
+        }
+        for (int i = 0; i < books; i++) {
+            send(post("/books", book()));
+        }
+        Random random = new Random(sales);
+        for (int recorded = 0; recorded < sales; recorded += SEED_BATCH_SIZE) {
+            for (JsonNode result : send(post("/sales/batch", sales(Math.min(SEED_BATCH_SIZE, sales - recorded),
+                    random)))) {
+                maxSeededSaleId = Math.max(maxSeededSaleId, result.path("sale").path("id").asInt());
+            }
+        }
+    }
+
+    Operation next(Random random) {
+        List<Operation> operations = random.nextDouble() < writeRatio ? writes : reads;
+        int weight = random.nextInt(operations.stream().mapToInt(Operation::getWeight).sum());
+        for (Operation operation : operations) {
+            weight -= operation.getWeight();
+            if (weight < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("The weights of the operations changed");
+    }
+
+    List<String> endpoints() {
+        List<String> endpoints = new ArrayList<>();
+        reads.forEach(operation -> endpoints.add(operation.getName()));
+        writes.forEach(operation -> endpoints.add(operation.getName()));
+        return endpoints;
+    }
+
+    private void read(String name, int weight, Function<Random, HttpRequest> request) {
+        reads.add(new Operation(name, weight, request));
+    }
+
+    private void write(String name, int weight, Function<Random, HttpRequest> request) {
+        writes.add(new Operation(name, weight, request));
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(String.format("Seeding failed, %s %s answered %d: %s",
+                    request.method(), request.uri(), response.statusCode(), new String(response.body())));
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, JsonNode body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private ObjectNode person(String lastName) {
+        return objectMapper.createObjectNode()
+                .put("firstName", "Load")
+                .put("middleInitial", "T")
+                .put("lastName", lastName + serial.incrementAndGet());
+    }
+
+    private ObjectNode product() {
+        long number = serial.incrementAndGet();
+        return objectMapper.createObjectNode()
+                .put("name", "Product" + number)
+                .put("price", 1 + number % 100);
+    }
+
+    private ObjectNode book() {
+        ObjectNode book = objectMapper.createObjectNode()
+                .put("isbn", String.format("978%010d", serial.incrementAndGet()))
+                .put("title", "Load Test")
+                .put("language", "en");
+        book.putObject("author")
+                .put("firstName", "Load")
+                .put("lastName", "Tester");
+        return book;
+    }
+
+    private ObjectNode sale(Random random) {
+        ObjectNode sale = objectMapper.createObjectNode();
+        sale.putObject("salesPerson").put("id", pick(employeeIds, random));
+        sale.putObject("customer").put("id", pick(customerIds, random));
+        sale.putObject("product").put("id", pick(productIds, random));
+        sale.put("quantity", 1 + random.nextInt(10));
+        return sale;
+    }
+
+    private ArrayNode sales(int count, Random random) {
+        ArrayNode sales = objectMapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            sales.add(sale(random));
+        }
+        return sales;
+    }
+
+    private static int pick(List<Integer> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Operation {
+
+        private final String name;
+
+        private final int weight;
+
+        @Getter(AccessLevel.NONE)
+        private final Function<Random, HttpRequest> request;
+
+        HttpRequest request(Random random) {
+            return request.apply(random);
+        }
+    }
+}
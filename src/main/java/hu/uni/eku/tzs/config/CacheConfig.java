@@ -0,0 +1,20 @@
+package hu.uni.eku.tzs.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Near-cache of the reference data and of the idempotency keys, sized and expired by
+ * {@code spring.cache.caffeine.spec}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCTS = "products";
+
+    public static final String EMPLOYEES = "employees";
+
+    public static final String CUSTOMERS = "customers";
+
+    public static final String IDEMPOTENCY_KEYS = "idempotencyKeys";
+}
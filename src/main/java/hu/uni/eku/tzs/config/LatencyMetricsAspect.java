@@ -0,0 +1,85 @@
+package hu.uni.eku.tzs.config;
+
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the controllers, managers and repositories. Each call is recorded in the
+ * {@value #METRIC} timer, tagged with its layer, class and method and the simple name of the exception it threw,
+ * so the latency, the throughput and the error rate of every method can be read from /actuator/prometheus.
+ * The {@link QueryDiagnosticsManager} is left out, it is called for every SQL statement.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class LatencyMetricsAspect {
+
+    static final String METRIC = "app.calls";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private static final String APPLICATION_PACKAGE = "hu.uni.eku.tzs";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("within(hu.uni.eku.tzs.controller.*) && execution(public * *(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "controller");
+    }
+
+    @Around("execution(public * hu.uni.eku.tzs.service.*Manager+.*(..))"
+            + " && !target(hu.uni.eku.tzs.service.QueryDiagnosticsManager)")
+    public Object timeManager(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "manager");
+    }
+
+    @Around("execution(public * *(..)) && (target(org.springframework.data.repository.Repository)"
+            + " || @within(org.springframework.stereotype.Repository))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "repository");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder(METRIC)
+                    .tag("layer", layer)
+                    .tag("class", classOf(joinPoint.getTarget()))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The Spring Data repositories are JDK proxies, they are named after the repository interface they implement.
+     */
+    private static String classOf(Object target) {
+        Class<?> type = ClassUtils.getUserClass(target);
+        if (Proxy.isProxyClass(type)) {
+            for (Class<?> proxiedInterface : type.getInterfaces()) {
+                if (proxiedInterface.getName().startsWith(APPLICATION_PACKAGE)) {
+                    return proxiedInterface.getSimpleName();
+                }
+            }
+        }
+        return type.getSimpleName();
+    }
+}
@@ -0,0 +1,37 @@
+package hu.uni.eku.tzs.config;
+
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Counts the statements of every manager call. It is ordered before the transaction interceptor, so the
+ * statements flushed on commit are counted too.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryDiagnosticsAspect {
+
+    private final QueryDiagnosticsManager queryDiagnosticsManager;
+
+    @Around("execution(public * hu.uni.eku.tzs.service.*Manager+.*(..))"
+            + " && !target(hu.uni.eku.tzs.service.QueryDiagnosticsManager)")
+    public Object countStatements(ProceedingJoinPoint joinPoint) throws Throwable {
+        queryDiagnosticsManager.openScope();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            queryDiagnosticsManager.closeScope(String.format("%s.%s",
+                    ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName(),
+                    joinPoint.getSignature().getName()));
+        }
+    }
+}
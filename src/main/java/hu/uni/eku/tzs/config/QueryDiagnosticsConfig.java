@@ -0,0 +1,44 @@
+package hu.uni.eku.tzs.config;
+
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source in a proxy that reports every statement executed through it, by Hibernate or by
+ * JdbcTemplate, to the {@link QueryDiagnosticsManager}.
+ */
+@Configuration
+public class QueryDiagnosticsConfig {
+
+    private static final String START = "diagnostics.start";
+
+    @Bean
+    public static BeanPostProcessor queryDiagnosticsDataSourceProxy(
+            ObjectProvider<QueryDiagnosticsManager> queryDiagnosticsManager) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .beforeQuery((execution, queries) -> execution.addCustomValue(START, System.nanoTime()))
+                        .afterQuery((execution, queries) -> {
+                            long elapsedNanos = System.nanoTime() - execution.getCustomValue(START, Long.class);
+                            // a batch is one round trip, it is counted as one statement
+                            queryDiagnosticsManager.getObject()
+                                    .statementExecuted(queries.get(0).getQuery(), elapsedNanos);
+                        })
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package hu.uni.eku.tzs.config;
+
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Counts the statements of every HTTP request. The request is named after the path pattern of its handler,
+ * so the requests of an endpoint are reported under the same name.
+ * The given share of the requests is logged by the {@code hu.uni.eku.tzs.requests} logger, sampled at random.
+ */
+@Component
+public class QueryDiagnosticsFilter extends OncePerRequestFilter {
+
+    private static final Logger REQUEST_LOG = LoggerFactory.getLogger("hu.uni.eku.tzs.requests");
+
+    private final QueryDiagnosticsManager queryDiagnosticsManager;
+
+    private final double requestLogSampleRate;
+
+    public QueryDiagnosticsFilter(QueryDiagnosticsManager queryDiagnosticsManager,
+                                  @Value("${diagnostics.request-log-sample-rate:0}") double requestLogSampleRate) {
+        this.queryDiagnosticsManager = queryDiagnosticsManager;
+        this.requestLogSampleRate = requestLogSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        queryDiagnosticsManager.openScope();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String name = String.format("%s %s", request.getMethod(),
+                    pattern != null ? pattern : request.getRequestURI());
+            int statements = queryDiagnosticsManager.closeScope(name);
+            if (requestLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < requestLogSampleRate) {
+                REQUEST_LOG.info("{} {} {} {}", kv("request", name), kv("status", response.getStatus()),
+                        kv("elapsedMillis", (System.nanoTime() - start) / 1_000_000.0), kv("statements", statements));
+            }
+        }
+    }
+}
@@ -68,7 +68,7 @@ public class BookController {
     @DeleteMapping(value = {"", "/"})
     public void delete(@RequestParam String isbn) {
         try {
-            bookManager.delete(bookManager.readByIsbn(isbn));
+            bookManager.deleteByIsbn(isbn);
         } catch (BookNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
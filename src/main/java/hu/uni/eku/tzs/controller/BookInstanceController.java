@@ -52,7 +52,7 @@ public class BookInstanceController {
     @PostMapping("/")
     public BookInstanceDto create(@RequestBody BookDto bookDto) {
         Book book = bookMapper.bookDto2Book(bookDto);
-        log.debug(book.toString());
+        log.debug("Recording an instance of {}", book);
         try {
             BookInstance recordedBookInstance = bookInstanceManager.record(book);
             return bookInstanceMapper.bookInstance2BookInstanceDto(recordedBookInstance);
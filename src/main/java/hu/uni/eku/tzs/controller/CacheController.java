@@ -0,0 +1,34 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.CacheStatisticsDto;
+import hu.uni.eku.tzs.controller.dto.CacheStatisticsMapper;
+import hu.uni.eku.tzs.service.CacheStatisticsManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+@Api(tags = "Caches")
+@RequestMapping("/caches")
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheStatisticsManager cacheStatisticsManager;
+
+    private final CacheStatisticsMapper cacheStatisticsMapper;
+
+    @ApiOperation("Read All")
+    @GetMapping(value = {"/", ""})
+    public Collection<CacheStatisticsDto> readAllCaches() {
+        return cacheStatisticsManager.readAll()
+                .stream()
+                .map(cacheStatisticsMapper::cacheStatistics2cacheStatisticsDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -2,8 +2,11 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.CustomerDto;
 import hu.uni.eku.tzs.controller.dto.CustomerMapper;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalePageDto;
 import hu.uni.eku.tzs.model.Customer;
 import hu.uni.eku.tzs.service.CustomerManager;
+import hu.uni.eku.tzs.service.SaleManager;
 import hu.uni.eku.tzs.service.exceptions.CustomerAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.CustomerNotFoundException;
 import io.swagger.annotations.Api;
@@ -35,6 +38,10 @@ public class CustomerController {
 
     private final CustomerMapper customerMapper;
 
+    private final SaleManager saleManager;
+
+    private final SaleMapper saleMapper;
+
     @ApiOperation("Read All")
     @GetMapping(value = {"/", ""})
     public Collection<CustomerDto> readAllCustomers() {
@@ -44,6 +51,24 @@ public class CustomerController {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Reads a page of the sales of the customer in ID order.
+     * To read the next page, pass {@code next} as {@code after}.
+     */
+    @ApiOperation("Read Sales")
+    @GetMapping("/{id}/sales")
+    public SalePageDto readSalesOfCustomer(@PathVariable int id,
+                                           @RequestParam(defaultValue = "0") int after,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        SalePages.checkLimit(limit);
+        try {
+            customerManager.readById(id);
+        } catch (CustomerNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+        return SalePages.toPage(saleManager.readAllOfCustomer(id, after, limit), limit, saleMapper);
+    }
+
     @ApiOperation("Record")
     @PostMapping(value = {"", "/"})
     public CustomerDto create(@Valid @RequestBody CustomerDto recordRequestDto) {
@@ -68,7 +93,7 @@ public class CustomerController {
     @DeleteMapping(value = {"", "/"})
     public void delete(@RequestParam int id) {
         try {
-            customerManager.delete(customerManager.readById(id));
+            customerManager.deleteById(id);
         } catch (CustomerNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
@@ -0,0 +1,52 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.QueryBudgetViolationDto;
+import hu.uni.eku.tzs.controller.dto.QueryDiagnosticsMapper;
+import hu.uni.eku.tzs.controller.dto.QueryStatisticsDto;
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+@Api(tags = "Diagnostics")
+@RequestMapping("/diagnostics")
+@RestController
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private final QueryDiagnosticsManager queryDiagnosticsManager;
+
+    private final QueryDiagnosticsMapper queryDiagnosticsMapper;
+
+    @ApiOperation("Slowest Queries")
+    @GetMapping("/queries")
+    public Collection<QueryStatisticsDto> readSlowestQueries(@RequestParam(defaultValue = "20") int top) {
+        return queryDiagnosticsManager.readSlowest(top)
+                .stream()
+                .map(queryDiagnosticsMapper::queryStatistics2queryStatisticsDto)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Budget Violations")
+    @GetMapping("/violations")
+    public Collection<QueryBudgetViolationDto> readViolations() {
+        return queryDiagnosticsManager.readViolations()
+                .stream()
+                .map(queryDiagnosticsMapper::queryBudgetViolation2queryBudgetViolationDto)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Reset")
+    @DeleteMapping("/queries")
+    public void reset() {
+        queryDiagnosticsManager.reset();
+    }
+}
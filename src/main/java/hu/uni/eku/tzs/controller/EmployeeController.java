@@ -2,8 +2,12 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.EmployeeDto;
 import hu.uni.eku.tzs.controller.dto.EmployeeMapper;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
 import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.SalesMeasure;
 import hu.uni.eku.tzs.service.EmployeeManager;
+import hu.uni.eku.tzs.service.EmployeePerformanceManager;
 import hu.uni.eku.tzs.service.exceptions.EmployeeAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.EmployeeNotFoundException;
 import io.swagger.annotations.Api;
@@ -35,6 +39,10 @@ public class EmployeeController {
 
     private final EmployeeMapper employeeMapper;
 
+    private final EmployeePerformanceManager employeePerformanceManager;
+
+    private final SaleMapper saleMapper;
+
     @ApiOperation("Read All")
     @GetMapping(value = {"/", ""})
     public Collection<EmployeeDto> readAllEmployees() {
@@ -44,6 +52,27 @@ public class EmployeeController {
                 .collect(Collectors.toList());
     }
 
+    @ApiOperation("Sales Total")
+    @GetMapping("/{id}/sales-total")
+    public SalesTotalDto readSalesTotal(@PathVariable int id) {
+        try {
+            employeeManager.readById(id);
+        } catch (EmployeeNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+        return saleMapper.salesTotal2salesTotalDto(employeePerformanceManager.readTotal(id));
+    }
+
+    @ApiOperation("Leaderboard")
+    @GetMapping("/leaderboard")
+    public Collection<SalesTotalDto> readLeaderboard(@RequestParam(defaultValue = "REVENUE") SalesMeasure by,
+                                                     @RequestParam(defaultValue = "10") int top) {
+        return employeePerformanceManager.readTop(by, top)
+                .stream()
+                .map(saleMapper::salesTotal2salesTotalDto)
+                .collect(Collectors.toList());
+    }
+
     @ApiOperation("Record")
     @PostMapping(value = {"", "/"})
     public EmployeeDto create(@Valid @RequestBody EmployeeDto recordRequestDto) {
@@ -68,7 +97,7 @@ public class EmployeeController {
     @DeleteMapping(value = {"", "/"})
     public void delete(@RequestParam int id) {
         try {
-            employeeManager.delete(employeeManager.readById(id));
+            employeeManager.deleteById(id);
         } catch (EmployeeNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
@@ -0,0 +1,61 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.ImportMapper;
+import hu.uni.eku.tzs.controller.dto.ImportProgressDto;
+import hu.uni.eku.tzs.model.ImportTable;
+import hu.uni.eku.tzs.service.ImportManager;
+import hu.uni.eku.tzs.service.exceptions.ImportAlreadyRunningException;
+import hu.uni.eku.tzs.service.exceptions.ImportFileNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.ImportNotFoundException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@Api(tags = "Imports")
+@RequestMapping("/imports")
+@RestController
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final ImportManager importManager;
+
+    private final ImportMapper importMapper;
+
+    /**
+     * Starts importing a CSV file, gzipped if its name ends with .gz, from the import directory.
+     * Customers, employees and products have to be imported before the sales referencing them.
+     */
+    @ApiOperation("Start")
+    @PostMapping("/{table}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ImportProgressDto start(@PathVariable ImportTable table,
+                                   @RequestParam String file,
+                                   @RequestParam(defaultValue = "true") boolean header) {
+        try {
+            return importMapper.importProgress2importProgressDto(importManager.start(table, file, header));
+        } catch (ImportFileNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (ImportAlreadyRunningException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @ApiOperation("Progress")
+    @GetMapping("/{table}")
+    public ImportProgressDto readProgress(@PathVariable ImportTable table) {
+        try {
+            return importMapper.importProgress2importProgressDto(importManager.readProgress(table));
+        } catch (ImportNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+}
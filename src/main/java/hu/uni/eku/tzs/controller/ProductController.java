@@ -2,7 +2,11 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.ProductDto;
 import hu.uni.eku.tzs.controller.dto.ProductMapper;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
 import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.service.ProductLeaderboardManager;
 import hu.uni.eku.tzs.service.ProductManager;
 import hu.uni.eku.tzs.service.exceptions.ProductNotFoundException;
 import hu.uni.eku.tzs.service.exceptions.ProductAlreadyExistsException;
@@ -35,6 +39,10 @@ public class ProductController {
 
     private final ProductMapper productMapper;
 
+    private final ProductLeaderboardManager productLeaderboardManager;
+
+    private final SaleMapper saleMapper;
+
     @ApiOperation("Read All")
     @GetMapping(value = {"/", ""})
     public Collection<ProductDto> readAllProducts() {
@@ -44,6 +52,16 @@ public class ProductController {
                 .collect(Collectors.toList());
     }
 
+    @ApiOperation("Best Sellers")
+    @GetMapping("/top")
+    public Collection<SalesTotalDto> readTop(@RequestParam(defaultValue = "QUANTITY") SalesMeasure by,
+                                             @RequestParam(defaultValue = "20") int top) {
+        return productLeaderboardManager.readTop(by, top)
+                .stream()
+                .map(saleMapper::salesTotal2salesTotalDto)
+                .collect(Collectors.toList());
+    }
+
     @ApiOperation("Record")
     @PostMapping(value = {"", "/"})
     public ProductDto create(@Valid @RequestBody ProductDto recordRequestDto) {
@@ -68,7 +86,7 @@ public class ProductController {
     @DeleteMapping(value = {"", "/"})
     public void delete(@RequestParam int id) {
         try {
-            productManager.delete(productManager.readById(id));
+            productManager.deleteById(id);
         } catch (ProductNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
@@ -0,0 +1,57 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.service.SalesAnalyticsManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+@Api(tags = "Sales Analytics")
+@RequestMapping("/sales/analytics")
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sales.analytics.enabled", havingValue = "true")
+public class SaleAnalyticsController {
+
+    private final SalesAnalyticsManager salesAnalyticsManager;
+
+    private final SaleMapper saleMapper;
+
+    @ApiOperation("Totals")
+    @GetMapping("/totals")
+    public Collection<SalesTotalDto> readTotals(@RequestParam(defaultValue = "PRODUCT") SalesDimension by,
+                                                @RequestParam(defaultValue = "0") int salesPersonId,
+                                                @RequestParam(defaultValue = "0") int customerId,
+                                                @RequestParam(defaultValue = "0") int productId,
+                                                @RequestParam(defaultValue = "0") int minQuantity,
+                                                @RequestParam(defaultValue = "0") int top) {
+        if (!salesAnalyticsManager.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Sales are still being loaded");
+        }
+        SalesFilter filter = new SalesFilter(salesPersonId, customerId, productId, minQuantity);
+        return salesAnalyticsManager.readTotals(by, filter, top)
+                .stream()
+                .map(saleMapper::salesTotal2salesTotalDto)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Reload")
+    @PostMapping("/reload")
+    public void reload() {
+        salesAnalyticsManager.reload();
+    }
+}
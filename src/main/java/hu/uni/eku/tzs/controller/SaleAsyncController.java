@@ -0,0 +1,45 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SaleRecordResultDto;
+import hu.uni.eku.tzs.service.AsyncSaleManager;
+import hu.uni.eku.tzs.service.exceptions.SaleQueueFullException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+
+@Api(tags = "Sales")
+@RequestMapping("/sales/async")
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sales.write-behind.enabled", havingValue = "true")
+public class SaleAsyncController {
+
+    private final AsyncSaleManager asyncSaleManager;
+
+    private final SaleMapper saleMapper;
+
+    /**
+     * Queues the sale and releases the servlet thread until the batch containing it is committed.
+     */
+    @ApiOperation("Record Async")
+    @PostMapping(value = {"", "/"})
+    public CompletableFuture<SaleRecordResultDto> create(@RequestBody SaleDto saleDto) {
+        try {
+            return asyncSaleManager.record(saleMapper.saleDto2sale(saleDto))
+                    .thenApply(saleMapper::saleRecordResult2saleRecordResultDto);
+        } catch (SaleQueueFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+}
@@ -1,28 +1,60 @@
 package hu.uni.eku.tzs.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni.eku.tzs.controller.dto.SaleDto;
 import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalePageDto;
+import hu.uni.eku.tzs.controller.dto.SaleRecordResultDto;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleChange;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.service.SaleChangeListener;
 import hu.uni.eku.tzs.service.SaleManager;
+import hu.uni.eku.tzs.service.SaleStreamManager;
+import hu.uni.eku.tzs.service.SaleSubscription;
+import hu.uni.eku.tzs.service.exceptions.IdempotencyKeyConflictException;
 import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.TooManySubscribersException;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Api(tags = "Sales")
@@ -31,31 +63,197 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SaleController {
 
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private static final String CSV_HEADER = "id,salesPersonId,customerId,productId,productPrice,quantity,soldAt";
+
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
     private final SaleManager saleManager;
 
     private final SaleMapper saleMapper;
 
+    private final ObjectMapper objectMapper;
+
+    private final SaleStreamManager saleStreamManager;
+
+    /**
+     * Reads at most {@code limit} sales following the sale with the ID {@code after}, as a plain list.
+     * To read the next page, pass the ID of the last sale as {@code after}, or use {@code /sales/page}.
+     */
     @ApiOperation("Read All")
     @GetMapping("/")
-    public Collection<SaleDto> readAllSales() {
-        return saleManager.readAll()
+    public Collection<SaleDto> readAllSales(@RequestParam(defaultValue = "0") int after,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        SalePages.checkLimit(limit);
+        return saleManager.readAll(after, limit)
                 .stream()
                 .map(saleMapper::sale2saleDto)
                 .collect(Collectors.toList());
     }
 
+    @ApiOperation("Read Page")
+    @GetMapping("/page")
+    public SalePageDto readSalePage(@RequestParam(defaultValue = "0") int after,
+                                    @RequestParam(defaultValue = "100") int limit) {
+        SalePages.checkLimit(limit);
+        return SalePages.toPage(saleManager.readAll(after, limit), limit, saleMapper);
+    }
+
+    /**
+     * Reads a page of the sales sold in {@code [from, to)}.
+     * To read the next page, pass the sale time of the last sale as {@code from} and {@code next} as {@code after}.
+     */
+    @ApiOperation("Read Sold Between")
+    @GetMapping("/sold")
+    public SalePageDto readSoldBetween(@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+                                       @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+                                       @RequestParam(defaultValue = "0") int after,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        SalePages.checkLimit(limit);
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        return SalePages.toPage(saleManager.readAllSoldBetween(from, to, after, limit), limit, saleMapper);
+    }
+
+    @ApiOperation("Totals")
+    @GetMapping("/totals")
+    public Collection<SalesTotalDto> readTotals(@RequestParam(defaultValue = "PRODUCT") SalesDimension by,
+                                                @RequestParam(defaultValue = "0") int top) {
+        return saleManager.readTotals(by, top)
+                .stream()
+                .map(saleMapper::salesTotal2salesTotalDto)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Rebuild Totals")
+    @PostMapping("/totals/rebuild")
+    public void rebuildTotals() {
+        saleManager.rebuildTotals();
+    }
+
+    /**
+     * Streams every committed sale write as a server-sent event named after the kind of the change.
+     */
+    @ApiOperation("Stream Changes")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            SaleSubscription subscription = saleStreamManager.subscribe(new SaleChangeListener() {
+                @Override
+                public void onChange(SaleChange change) throws IOException {
+                    emitter.send(SseEmitter.event()
+                            .name(change.getType().name().toLowerCase())
+                            .data(saleMapper.saleChange2saleChangeDto(change), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void onDropped(String reason) {
+                    emitter.complete();
+                }
+            });
+            emitter.onCompletion(subscription::close);
+            emitter.onTimeout(subscription::close);
+            emitter.onError(e -> subscription.close());
+        } catch (TooManySubscribersException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        return emitter;
+    }
+
+    @ApiOperation("Export All")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllSales(@RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(CSV)
+                    .body(outputStream -> export(outputStream, CSV_HEADER, this::writeCsvLine));
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(NDJSON)
+                    .body(outputStream -> export(outputStream, null, this::writeJsonLine));
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Unknown export format %s", format));
+    }
+
     @ApiOperation("Record")
     @PostMapping("/")
-    public SaleDto create(@RequestBody SaleDto saleDto) {
+    public SaleDto create(@RequestBody SaleDto saleDto,
+                          @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank()
+                || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(
+                    "%s must be 1 to %d characters long", IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
         Sale sale = saleMapper.saleDto2sale(saleDto);
         try {
-            Sale recordedSale = saleManager.record(sale);
+            Sale recordedSale = idempotencyKey == null
+                    ? saleManager.record(sale)
+                    : saleManager.record(sale, idempotencyKey);
             return saleMapper.sale2saleDto(recordedSale);
         } catch (SaleAlreadyExistsException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        } catch (IdempotencyKeyConflictException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
         }
     }
 
+    @ApiOperation("Record Batch")
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Collection<SaleRecordResultDto> createBatch(@RequestBody List<SaleDto> saleDtos) {
+        if (saleDtos.size() > MAX_BATCH_SIZE) {
+            throw batchTooLarge();
+        }
+        return saleManager.recordAll(
+                saleDtos.stream()
+                        .map(saleMapper::saleDto2sale)
+                        .collect(Collectors.toList()))
+                .stream()
+                .map(saleMapper::saleRecordResult2saleRecordResultDto)
+                .collect(Collectors.toList());
+    }
+
+    @ApiOperation("Record Batch")
+    @PostMapping(value = "/batch", consumes = NDJSON_VALUE)
+    public Collection<SaleRecordResultDto> createBatchFromNdjson(InputStream inputStream) throws IOException {
+        List<SaleDto> saleDtos = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            // stops reading the body as soon as it holds too many sales
+            if (saleDtos.size() == MAX_BATCH_SIZE) {
+                throw batchTooLarge();
+            }
+            try {
+                saleDtos.add(objectMapper.readValue(line, SaleDto.class));
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        String.format("Cannot parse line %d: %s", lineNumber, e.getOriginalMessage()));
+            }
+        }
+        return createBatch(saleDtos);
+    }
+
+    private static ResponseStatusException batchTooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                String.format("a batch can contain at most %d sales", MAX_BATCH_SIZE));
+    }
+
     @ApiOperation("Update")
     @PutMapping(value = {"", "/"})
     public SaleDto update(@Valid @RequestBody SaleDto updateRequestDto) {
@@ -68,7 +266,7 @@ public class SaleController {
     @DeleteMapping(value = {"", "/"})
     public void delete(@RequestParam int id) {
         try {
-            saleManager.delete(saleManager.readById(id));
+            saleManager.deleteById(id);
         } catch (SaleNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
@@ -79,4 +277,46 @@ public class SaleController {
     public void deleteBasedOnPath(@PathVariable int id) {
         this.delete(id);
     }
+
+    private void export(OutputStream outputStream, String header, SaleLineWriter lineWriter)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (header != null) {
+            writer.write(header);
+            writer.write('\n');
+        }
+        try {
+            saleManager.exportAll(sale -> {
+                try {
+                    lineWriter.write(writer, saleMapper.sale2saleDto(sale));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeJsonLine(Writer writer, SaleDto saleDto) throws IOException {
+        writer.write(objectMapper.writeValueAsString(saleDto));
+    }
+
+    private void writeCsvLine(Writer writer, SaleDto saleDto) throws IOException {
+        writer.write(String.format("%d,%d,%d,%d,%s,%s,%s",
+                saleDto.getId(),
+                saleDto.getSalesPerson().getId(),
+                saleDto.getCustomer().getId(),
+                saleDto.getProduct().getId(),
+                saleDto.getProduct().getPrice(),
+                saleDto.getQuantity(),
+                saleDto.getSoldAt() != null ? saleDto.getSoldAt() : ""));
+    }
+
+    @FunctionalInterface
+    private interface SaleLineWriter {
+        void write(Writer writer, SaleDto saleDto) throws IOException;
+    }
 }
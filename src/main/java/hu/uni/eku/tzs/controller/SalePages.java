@@ -0,0 +1,41 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalePageDto;
+import hu.uni.eku.tzs.model.Sale;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The keyset pagination shared by every endpoint that reads a page of sales.
+ */
+final class SalePages {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private SalePages() {
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+    }
+
+    /**
+     * Only a full page has a next one, starting after its last sale.
+     */
+    static SalePageDto toPage(Collection<Sale> page, int limit, SaleMapper saleMapper) {
+        List<SaleDto> sales = page.stream()
+                .map(saleMapper::sale2saleDto)
+                .collect(Collectors.toList());
+        Integer next = sales.size() < limit ? null : sales.get(sales.size() - 1).getId();
+        return new SalePageDto(sales, next);
+    }
+}
@@ -0,0 +1,9 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import hu.uni.eku.tzs.model.CacheStatistics;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface CacheStatisticsMapper {
+    CacheStatisticsDto cacheStatistics2cacheStatisticsDto(CacheStatistics statistics);
+}
@@ -0,0 +1,9 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import hu.uni.eku.tzs.model.ImportProgress;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ImportMapper {
+    ImportProgressDto importProgress2importProgressDto(ImportProgress progress);
+}
@@ -0,0 +1,31 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressDto {
+
+    private String table;
+
+    private String file;
+
+    private String status;
+
+    private long linesResumed;
+
+    private long linesDone;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,26 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryBudgetViolationDto {
+
+    private String scope;
+
+    private int statements;
+
+    private double elapsedMillis;
+
+    private LocalDateTime finishedAt;
+
+    private List<String> topStatements;
+}
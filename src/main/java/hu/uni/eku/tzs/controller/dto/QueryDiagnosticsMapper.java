@@ -0,0 +1,12 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import hu.uni.eku.tzs.model.QueryBudgetViolation;
+import hu.uni.eku.tzs.model.QueryStatistics;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface QueryDiagnosticsMapper {
+    QueryStatisticsDto queryStatistics2queryStatisticsDto(QueryStatistics statistics);
+
+    QueryBudgetViolationDto queryBudgetViolation2queryBudgetViolationDto(QueryBudgetViolation violation);
+}
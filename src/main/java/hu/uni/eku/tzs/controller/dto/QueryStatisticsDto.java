@@ -0,0 +1,27 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryStatisticsDto {
+
+    private String fingerprintId;
+
+    private String fingerprint;
+
+    private long executions;
+
+    private long slowExecutions;
+
+    private double totalMillis;
+
+    private double meanMillis;
+
+    private double maxMillis;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -28,4 +29,6 @@ public class SaleDto {
     @Min(value = 0, message = "the quantity must be positive")
     private double quantity;
 
+    private LocalDateTime soldAt;
+
 }
@@ -1,6 +1,9 @@
 package hu.uni.eku.tzs.controller.dto;
 
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleChange;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.model.SalesTotal;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring", uses = {CustomerMapper.class, EmployeeMapper.class, ProductMapper.class})
@@ -8,4 +11,10 @@ public interface SaleMapper {
     SaleDto sale2saleDto(Sale sale);
 
     Sale saleDto2sale(SaleDto dto);
+
+    SaleRecordResultDto saleRecordResult2saleRecordResultDto(SaleRecordResult result);
+
+    SalesTotalDto salesTotal2salesTotalDto(SalesTotal total);
+
+    SaleChangeDto saleChange2saleChangeDto(SaleChange change);
 }
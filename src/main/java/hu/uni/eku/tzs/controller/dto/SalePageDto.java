@@ -0,0 +1,22 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalePageDto {
+
+    private Collection<SaleDto> sales;
+
+    /**
+     * Cursor of the following page, {@code null} when there are no more sales.
+     */
+    private Integer next;
+}
@@ -0,0 +1,21 @@
+package hu.uni.eku.tzs.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleRecordResultDto {
+
+    private int index;
+
+    private String status;
+
+    private SaleDto sale;
+
+    private String message;
+}
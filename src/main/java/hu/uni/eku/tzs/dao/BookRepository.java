@@ -1,7 +1,25 @@
 package hu.uni.eku.tzs.dao;
 
 import hu.uni.eku.tzs.dao.entity.BookEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<BookEntity, String> {
+
+    /**
+     * Reads the ISBNs following the given one in key order, a page is a range scan of the primary key.
+     */
+    @Query("SELECT b.isbn FROM books b WHERE b.isbn > :after ORDER BY b.isbn")
+    List<String> findIsbnsAfter(@Param("after") String after, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM books b WHERE b.isbn = :isbn")
+    int deleteIfPresent(@Param("isbn") String isbn);
 }
@@ -1,7 +1,25 @@
 package hu.uni.eku.tzs.dao;
 
 import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface CustomerRepository extends JpaRepository<CustomerEntity, Integer> {
+
+    /**
+     * Reads the CustomerIDs following the given one in key order, a page is a range scan of the primary key.
+     */
+    @Query("SELECT c.id FROM Customers c WHERE c.id > :after ORDER BY c.id")
+    List<Integer> findIdsAfter(@Param("after") int after, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Customers c WHERE c.id = :id")
+    int deleteIfPresent(@Param("id") int id);
 }
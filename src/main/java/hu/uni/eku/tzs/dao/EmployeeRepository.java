@@ -1,7 +1,25 @@
 package hu.uni.eku.tzs.dao;
 
 import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface EmployeeRepository extends JpaRepository<EmployeeEntity, Integer> {
+
+    /**
+     * Reads the EmployeeIDs following the given one in key order, a page is a range scan of the primary key.
+     */
+    @Query("SELECT e.id FROM Employees e WHERE e.id > :after ORDER BY e.id")
+    List<Integer> findIdsAfter(@Param("after") int after, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Employees e WHERE e.id = :id")
+    int deleteIfPresent(@Param("id") int id);
 }
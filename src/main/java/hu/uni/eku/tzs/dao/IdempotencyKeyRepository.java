@@ -0,0 +1,22 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    @Query("SELECT k.id FROM IdempotencyKeys k WHERE k.saleId = :saleId")
+    List<String> findAllIdsBySaleId(@Param("saleId") int saleId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeys k WHERE k.createdAt < :before")
+    int deleteAllCreatedBefore(@Param("before") LocalDateTime before);
+}
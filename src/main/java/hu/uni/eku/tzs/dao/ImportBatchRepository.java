@@ -0,0 +1,43 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.model.ImportTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes imported rows with plain JDBC batches, sent as multi-row statements thanks to
+ * {@code rewriteBatchedStatements=true}. Rows keep the IDs of the file and replace the rows they collide with,
+ * so writing the same lines again is harmless.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ImportBatchRepository {
+
+    private static final String PERSON_COLUMNS = "FirstName, MiddleInitial, LastName) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE FirstName = VALUES(FirstName), MiddleInitial = VALUES(MiddleInitial), "
+            + "LastName = VALUES(LastName)";
+
+    private static final Map<ImportTable, String> UPSERTS = new EnumMap<>(Map.of(
+            ImportTable.CUSTOMERS, "INSERT INTO Customers (CustomerID, " + PERSON_COLUMNS,
+            ImportTable.EMPLOYEES, "INSERT INTO Employees (EmployeeID, " + PERSON_COLUMNS,
+            ImportTable.PRODUCTS, "INSERT INTO Products (ProductID, Name, Price) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE Name = VALUES(Name), Price = VALUES(Price)",
+            ImportTable.SALES, "INSERT INTO Sales (SalesID, SalesPersonID, CustomerID, ProductID, Quantity, SoldAt) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE SalesPersonID = VALUES(SalesPersonID), "
+                    + "CustomerID = VALUES(CustomerID), ProductID = VALUES(ProductID), Quantity = VALUES(Quantity), "
+                    + "SoldAt = VALUES(SoldAt)"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes the rows, each holding the values of the columns of the table in order.
+     */
+    public void upsertAll(ImportTable table, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(UPSERTS.get(table), rows);
+    }
+}
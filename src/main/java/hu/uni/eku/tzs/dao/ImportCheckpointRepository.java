@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.ImportCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpointEntity, String> {
+}
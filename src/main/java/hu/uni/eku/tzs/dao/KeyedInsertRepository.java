@@ -0,0 +1,83 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.BookEntity;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts single rows with their primary keys kept, in one statement and without reading the row first.
+ * A row with the same key fails on the primary key with {@link org.springframework.dao.DuplicateKeyException}.
+ * Hibernate would merge an entity with its ID set, a SELECT of the row, and give it a generated ID
+ * if it is missing. Joins the surrounding transaction.
+ * The managers record a row with a given key here, and only look the key up first if the existence filter
+ * cannot rule it out. A key recorded concurrently, or by a writer the filter has not heard of, is caught by
+ * the primary key instead. Rows without a key are still saved through Hibernate and given a generated one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class KeyedInsertRepository {
+
+    private static final String INSERT_EMPLOYEE =
+            "INSERT INTO Employees (EmployeeID, FirstName, MiddleInitial, LastName) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_CUSTOMER =
+            "INSERT INTO Customers (CustomerID, FirstName, MiddleInitial, LastName) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO Products (ProductID, Name, Price) VALUES (?, ?, ?)";
+
+    private static final String INSERT_SALE =
+            "INSERT INTO Sales (SalesID, SalesPersonID, CustomerID, ProductID, Quantity, SoldAt) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (isbn, author, title, language) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertEmployee(EmployeeEntity employee) {
+        jdbcTemplate.update(INSERT_EMPLOYEE, employee.getId(), employee.getFirstName(), employee.getMiddleInitial(),
+                employee.getLastName());
+    }
+
+    public void insertCustomer(CustomerEntity customer) {
+        jdbcTemplate.update(INSERT_CUSTOMER, customer.getId(), customer.getFirstName(), customer.getMiddleInitial(),
+                customer.getLastName());
+    }
+
+    public void insertProduct(ProductEntity product) {
+        jdbcTemplate.update(INSERT_PRODUCT, product.getId(), product.getName(), product.getPrice());
+    }
+
+    public void insertSale(SaleEntity sale) {
+        jdbcTemplate.update(INSERT_SALE, saleArguments(sale));
+    }
+
+    /**
+     * Inserts the sales in JDBC batches, which the driver rewrites into multi-row INSERTs.
+     */
+    public void insertSales(List<SaleEntity> sales) {
+        jdbcTemplate.batchUpdate(INSERT_SALE, sales.stream()
+                .map(KeyedInsertRepository::saleArguments)
+                .collect(Collectors.toList()));
+    }
+
+    public void insertBook(BookEntity book) {
+        jdbcTemplate.update(INSERT_BOOK, book.getIsbn(), book.getAuthor().getId(), book.getTitle(),
+                book.getLanguage());
+    }
+
+    private static Object[] saleArguments(SaleEntity sale) {
+        return new Object[] {sale.getId(), sale.getSalesPerson().getId(), sale.getCustomer().getId(),
+                sale.getProduct().getId(), sale.getQuantity(), Timestamp.valueOf(sale.getSoldAt())};
+    }
+}
@@ -0,0 +1,74 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.AuthorEntity;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Creates employees, customers, products and authors with their IDs kept, leaving rows that already exist untouched.
+ * Every call is a single batch which the driver rewrites into one multi-row INSERT ... ON DUPLICATE KEY UPDATE,
+ * so concurrent writers creating the same reference do not fail on each other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReferenceUpsertRepository {
+
+    private static final String UPSERT_EMPLOYEE =
+            "INSERT INTO Employees (EmployeeID, FirstName, MiddleInitial, LastName) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE EmployeeID = EmployeeID";
+
+    private static final String UPSERT_CUSTOMER =
+            "INSERT INTO Customers (CustomerID, FirstName, MiddleInitial, LastName) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE CustomerID = CustomerID";
+
+    private static final String UPSERT_PRODUCT =
+            "INSERT INTO Products (ProductID, Name, Price) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE ProductID = ProductID";
+
+    private static final String UPSERT_AUTHOR =
+            "INSERT INTO authors (id, first_name, last_name, nationality) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void upsertEmployees(List<EmployeeEntity> employees) {
+        jdbcTemplate.batchUpdate(UPSERT_EMPLOYEE, employees, employees.size(), (statement, employee) -> {
+            statement.setInt(1, employee.getId());
+            statement.setString(2, employee.getFirstName());
+            statement.setString(3, employee.getMiddleInitial());
+            statement.setString(4, employee.getLastName());
+        });
+    }
+
+    public void upsertCustomers(List<CustomerEntity> customers) {
+        jdbcTemplate.batchUpdate(UPSERT_CUSTOMER, customers, customers.size(), (statement, customer) -> {
+            statement.setInt(1, customer.getId());
+            statement.setString(2, customer.getFirstName());
+            statement.setString(3, customer.getMiddleInitial());
+            statement.setString(4, customer.getLastName());
+        });
+    }
+
+    public void upsertProducts(List<ProductEntity> products) {
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, products, products.size(), (statement, product) -> {
+            statement.setInt(1, product.getId());
+            statement.setString(2, product.getName());
+            statement.setDouble(3, product.getPrice());
+        });
+    }
+
+    public void upsertAuthors(List<AuthorEntity> authors) {
+        jdbcTemplate.batchUpdate(UPSERT_AUTHOR, authors, authors.size(), (statement, author) -> {
+            statement.setInt(1, author.getId());
+            statement.setString(2, author.getFirstName());
+            statement.setString(3, author.getLastName());
+            statement.setString(4, author.getNationality());
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes sales with plain JDBC batches.
+ * Hibernate cannot batch inserts of IDENTITY-generated entities, so bulk writes bypass it. With
+ * {@code rewriteBatchedStatements=true} on the connection URL the driver sends every batch as multi-row INSERTs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SaleBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SALE =
+            "INSERT INTO Sales (SalesPersonID, CustomerID, ProductID, Quantity, SoldAt) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the sales and writes the generated SalesIDs back into the given entities.
+     * Joins the surrounding transaction.
+     */
+    public void insertAll(List<SaleEntity> sales) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement =
+                         connection.prepareStatement(INSERT_SALE, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < sales.size(); from += BATCH_SIZE) {
+                    List<SaleEntity> batch = sales.subList(from, Math.min(from + BATCH_SIZE, sales.size()));
+                    for (SaleEntity sale : batch) {
+                        statement.setInt(1, sale.getSalesPerson().getId());
+                        statement.setInt(2, sale.getCustomer().getId());
+                        statement.setInt(3, sale.getProduct().getId());
+                        statement.setInt(4, sale.getQuantity());
+                        statement.setTimestamp(5, Timestamp.valueOf(sale.getSoldAt()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (SaleEntity sale : batch) {
+                            if (keys.next()) {
+                                sale.setId(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
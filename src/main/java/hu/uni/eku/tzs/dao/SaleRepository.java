@@ -1,7 +1,87 @@
 package hu.uni.eku.tzs.dao;
 
 import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface SaleRepository extends JpaRepository<SaleEntity, Integer> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SaleRepository extends JpaRepository<SaleEntity, Integer>, SaleStreamRepository {
+
+    /**
+     * Reads the sale together with its references in a single statement.
+     */
+    @Override
+    @EntityGraph(SaleEntity.WITH_REFERENCES)
+    Optional<SaleEntity> findById(Integer id);
+
+    /**
+     * Reads the sale together with its references and the idempotency keys that recorded it in a single statement,
+     * one row per key and no row if there is no such sale.
+     */
+    @Query("SELECT s AS sale, k.id AS idempotencyKey FROM Sales s LEFT JOIN FETCH s.salesPerson "
+            + "LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.product "
+            + "LEFT JOIN IdempotencyKeys k ON k.saleId = s.id WHERE s.id = :id")
+    List<SaleWithIdempotencyKeyView> findWithIdempotencyKeysById(@Param("id") int id);
+
+    /**
+     * Reads the sales following the given SalesID in key order, together with their references.
+     * Seeks into the primary key index, so a page costs the same regardless of its depth,
+     * and is a single statement.
+     */
+    @EntityGraph(SaleEntity.WITH_REFERENCES)
+    List<SaleEntity> findAllByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
+    /**
+     * Reads the sales of the customer following the given SalesID in key order, together with their references.
+     * Seeks into the (CustomerID, SalesID) index, so a page is a single range scan even for customers
+     * with many sales.
+     */
+    @EntityGraph(SaleEntity.WITH_REFERENCES)
+    List<SaleEntity> findAllByCustomerIdAndIdGreaterThanOrderByIdAsc(int customerId, int id, Pageable pageable);
+
+    /**
+     * Reads the sales sold in {@code [from, to)} in order of sale time, then SalesID.
+     * Continues after the sale sold at {@code from} with the SalesID {@code after}, so a window is paged through
+     * with range scans of the SoldAt index.
+     */
+    @EntityGraph(SaleEntity.WITH_REFERENCES)
+    @Query("SELECT s FROM Sales s WHERE s.soldAt < :to "
+            + "AND (s.soldAt > :from OR (s.soldAt = :from AND s.id > :after)) ORDER BY s.soldAt, s.id")
+    List<SaleEntity> findAllSoldBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                        @Param("after") int after, Pageable pageable);
+
+    @Query("SELECT s.id FROM Sales s WHERE s.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Reads the SalesIDs following the given one in key order, a page is a range scan of the primary key.
+     */
+    @Query("SELECT s.id FROM Sales s WHERE s.id > :after ORDER BY s.id")
+    List<Integer> findIdsAfter(@Param("after") int after, Pageable pageable);
+
+    @Query("SELECT s.product.id AS id, SUM(s.quantity) AS quantity, SUM(s.quantity * s.product.price) AS revenue "
+            + "FROM Sales s GROUP BY s.product.id ORDER BY revenue DESC")
+    List<SalesTotalView> sumByProduct(Pageable pageable);
+
+    @Query("SELECT s.salesPerson.id AS id, SUM(s.quantity) AS quantity, SUM(s.quantity * s.product.price) AS revenue "
+            + "FROM Sales s GROUP BY s.salesPerson.id ORDER BY revenue DESC")
+    List<SalesTotalView> sumBySalesPerson(Pageable pageable);
+
+    @Query("SELECT s.customer.id AS id, SUM(s.quantity) AS quantity, SUM(s.quantity * s.product.price) AS revenue "
+            + "FROM Sales s GROUP BY s.customer.id ORDER BY revenue DESC")
+    List<SalesTotalView> sumByCustomer(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Sales s WHERE s.id = :id")
+    int deleteIfPresent(@Param("id") int id);
 }
@@ -0,0 +1,14 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+
+import java.util.stream.Stream;
+
+public interface SaleStreamRepository {
+
+    /**
+     * Streams every sale in key order through a forward-only cursor. The references are joined so no further
+     * statement is issued while streaming. Must be consumed within a transaction.
+     */
+    Stream<SaleEntity> streamAll();
+}
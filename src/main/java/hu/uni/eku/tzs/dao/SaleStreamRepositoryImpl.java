@@ -0,0 +1,40 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.QueryHints;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Stream;
+
+/**
+ * The fetch size of {@link Integer#MIN_VALUE} makes MySQL Connector/J stream rows instead of buffering the whole
+ * result set. Other drivers, H2 among them, reject it, so other dialects fetch the rows in pages of
+ * {@link #FETCH_SIZE}.
+ */
+@RequiredArgsConstructor
+public class SaleStreamRepositoryImpl implements SaleStreamRepository {
+
+    static final int FETCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Stream<SaleEntity> streamAll() {
+        return entityManager.createQuery("SELECT s FROM Sales s "
+                + "LEFT JOIN FETCH s.salesPerson LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.product ORDER BY s.id",
+                SaleEntity.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize())
+                .getResultStream();
+    }
+
+    private int fetchSize() {
+        boolean mysql = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof MySQLDialect;
+        return mysql ? Integer.MIN_VALUE : FETCH_SIZE;
+    }
+}
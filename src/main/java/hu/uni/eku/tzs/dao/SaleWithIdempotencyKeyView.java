@@ -0,0 +1,13 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+
+/**
+ * Projection of a sale joined with one of the idempotency keys that recorded it, {@code null} if none did.
+ */
+public interface SaleWithIdempotencyKeyView {
+
+    SaleEntity getSale();
+
+    String getIdempotencyKey();
+}
@@ -0,0 +1,36 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SalesRollupEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Applies quantity and revenue deltas to the sales rollups.
+ * Rows are created on their first delta, and all deltas are sent as one rewritten multi-row statement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupBatchRepository {
+
+    private static final String ADD_TO_ROLLUP =
+            "INSERT INTO SalesRollups (Dimension, KeyID, Quantity, Revenue) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE Quantity = Quantity + VALUES(Quantity), "
+                    + "Revenue = Revenue + VALUES(Revenue)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addAll(List<SalesRollupEntity> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_TO_ROLLUP, deltas, deltas.size(), (statement, delta) -> {
+            statement.setString(1, delta.getId().getDimension());
+            statement.setInt(2, delta.getId().getKeyId());
+            statement.setLong(3, delta.getQuantity());
+            statement.setDouble(4, delta.getRevenue());
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.SalesRollupEntity;
+import hu.uni.eku.tzs.dao.entity.SalesRollupKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollupEntity, SalesRollupKey> {
+
+    List<SalesRollupEntity> findAllByIdDimensionOrderByRevenueDesc(String dimension, Pageable pageable);
+}
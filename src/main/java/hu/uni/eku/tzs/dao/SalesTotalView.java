@@ -0,0 +1,13 @@
+package hu.uni.eku.tzs.dao;
+
+/**
+ * Projection of the grouped sales queries, so they never load a {@code SaleEntity}.
+ */
+public interface SalesTotalView {
+
+    int getId();
+
+    long getQuantity();
+
+    double getRevenue();
+}
@@ -0,0 +1,46 @@
+package hu.uni.eku.tzs.dao.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Remembers which sale an Idempotency-Key of POST /sales/ created.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "IdempotencyKeys")
+@Table(indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "CreatedAt"),
+        @Index(name = "idx_idempotency_keys_sales_id", columnList = "SalesID")})
+public class IdempotencyKeyEntity implements Persistable<String> {
+    @Id
+    @Column(name = "IdempotencyKey", length = 64)
+    private String id;
+
+    @Column(name = "SalesID")
+    private int saleId;
+
+    @Column(name = "CreatedAt")
+    private LocalDateTime createdAt;
+
+    /**
+     * Keys are only ever inserted, so saving one is a plain INSERT that fails on a duplicate
+     * instead of a merge that reads the row first.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
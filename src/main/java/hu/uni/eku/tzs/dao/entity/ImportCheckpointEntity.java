@@ -0,0 +1,32 @@
+package hu.uni.eku.tzs.dao.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * The number of leading lines of an import file that are known to be written, so an interrupted import
+ * resumes after them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "ImportCheckpoints")
+public class ImportCheckpointEntity {
+    @Id
+    @Column(name = "ImportName")
+    private String id;
+
+    @Column(name = "LinesDone")
+    private long linesDone;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+}
@@ -7,35 +7,54 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity(name = "Sales")
+@Table(indexes = {
+        @Index(name = "idx_sales_sold_at", columnList = "SoldAt"),
+        @Index(name = "idx_sales_customer", columnList = "CustomerID, SalesID")})
+@NamedEntityGraph(name = SaleEntity.WITH_REFERENCES, attributeNodes = {
+        @NamedAttributeNode("salesPerson"), @NamedAttributeNode("customer"), @NamedAttributeNode("product")})
 public class SaleEntity {
+    /**
+     * Joins the sales person, the customer and the product into the query of the sales.
+     */
+    public static final String WITH_REFERENCES = "Sales.withReferences";
+
     @Id
     @Column(name = "SalesID")
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "SalesPersonID")
     private EmployeeEntity salesPerson;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "CustomerID")
     private CustomerEntity customer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ProductID")
     private ProductEntity product;
 
     @Column(name = "Quantity")
     private int quantity;
+
+    @Column(name = "SoldAt")
+    private LocalDateTime soldAt;
 }
@@ -0,0 +1,32 @@
+package hu.uni.eku.tzs.dao.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Pre-aggregated quantity and revenue of the sales of one product, sales person or customer.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "SalesRollups")
+@Table(indexes = @Index(name = "idx_sales_rollups_revenue", columnList = "Dimension, Revenue"))
+public class SalesRollupEntity {
+    @EmbeddedId
+    private SalesRollupKey id;
+
+    @Column(name = "Quantity")
+    private long quantity;
+
+    @Column(name = "Revenue")
+    private double revenue;
+}
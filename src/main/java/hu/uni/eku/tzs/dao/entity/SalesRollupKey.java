@@ -0,0 +1,26 @@
+package hu.uni.eku.tzs.dao.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SalesRollupKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "Dimension", length = 16)
+    private String dimension;
+
+    @Column(name = "KeyID")
+    private int keyId;
+}
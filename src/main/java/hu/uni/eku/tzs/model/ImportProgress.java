@@ -0,0 +1,36 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of an import. Lines are counted after the header; {@code linesDone} counts the lines written
+ * without a gap, including those of earlier runs the import resumed after.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgress {
+    private ImportTable table;
+
+    private String file;
+
+    private ImportStatus status;
+
+    private long linesResumed;
+
+    private long linesDone;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,34 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The tables a CSV file can be imported into, with the columns every line holds in order.
+ * Sales reference the other three tables, so those are imported first.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImportTable {
+    /**
+     * CustomerID, FirstName, MiddleInitial, LastName.
+     */
+    CUSTOMERS(4, KeyedTable.CUSTOMERS),
+    /**
+     * EmployeeID, FirstName, MiddleInitial, LastName.
+     */
+    EMPLOYEES(4, KeyedTable.EMPLOYEES),
+    /**
+     * ProductID, Name, Price.
+     */
+    PRODUCTS(3, KeyedTable.PRODUCTS),
+    /**
+     * SalesID, SalesPersonID, CustomerID, ProductID, Quantity and an optional ISO SoldAt, 1970-01-01 if it is
+     * missing.
+     */
+    SALES(5, KeyedTable.SALES);
+
+    private final int columnCount;
+
+    private final KeyedTable keyedTable;
+}
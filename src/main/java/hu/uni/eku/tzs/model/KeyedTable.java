@@ -0,0 +1,13 @@
+package hu.uni.eku.tzs.model;
+
+/**
+ * The tables whose primary keys are kept in an existence filter, so recording a row under a new key
+ * does not have to look it up first.
+ */
+public enum KeyedTable {
+    SALES,
+    CUSTOMERS,
+    EMPLOYEES,
+    PRODUCTS,
+    BOOKS
+}
@@ -0,0 +1,31 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An HTTP request or manager call that issued more statements or ran longer than its budget,
+ * with the fingerprints of the statements it issued most often.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryBudgetViolation {
+    private String scope;
+
+    private int statements;
+
+    private double elapsedMillis;
+
+    private LocalDateTime finishedAt;
+
+    private List<String> topStatements;
+}
@@ -0,0 +1,32 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Executions and time spent of the SQL statements sharing a fingerprint since the application started
+ * or the statistics were reset. A statement is slow if it ran for the slow statement threshold or longer.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryStatistics {
+    private String fingerprintId;
+
+    private String fingerprint;
+
+    private long executions;
+
+    private long slowExecutions;
+
+    private double totalMillis;
+
+    private double meanMillis;
+
+    private double maxMillis;
+}
@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.model;
+
+public enum RecordStatus {
+    RECORDED,
+    ALREADY_EXISTS,
+    REJECTED
+}
@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @Data
@@ -21,4 +23,6 @@ public class Sale {
     private Product product;
 
     private int quantity;
+
+    private LocalDateTime soldAt;
 }
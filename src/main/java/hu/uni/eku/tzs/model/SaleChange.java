@@ -0,0 +1,21 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A committed write of a sale, carrying the sale as it was recorded, modified or deleted.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleChange {
+    private SaleChangeType type;
+
+    private Sale sale;
+}
@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.model;
+
+public enum SaleChangeType {
+    RECORDED,
+    MODIFIED,
+    DELETED
+}
@@ -0,0 +1,22 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleRecordResult {
+    private int index;
+
+    private RecordStatus status;
+
+    private Sale sale;
+
+    private String message;
+}
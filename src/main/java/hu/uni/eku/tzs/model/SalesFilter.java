@@ -0,0 +1,25 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Restricts sales analytics to the given sales person, customer and product, 0 matching any.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesFilter {
+    private int salesPersonId;
+
+    private int customerId;
+
+    private int productId;
+
+    private int minQuantity;
+}
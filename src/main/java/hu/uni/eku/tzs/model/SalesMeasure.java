@@ -0,0 +1,9 @@
+package hu.uni.eku.tzs.model;
+
+/**
+ * The measure a ranking of sales totals is ordered by.
+ */
+public enum SalesMeasure {
+    QUANTITY,
+    REVENUE
+}
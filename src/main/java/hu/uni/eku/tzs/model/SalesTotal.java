@@ -0,0 +1,23 @@
+package hu.uni.eku.tzs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Units sold and revenue of a product, a sales person or a customer, identified by its ID.
+ */
+@Getter
+@Setter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesTotal {
+    private int id;
+
+    private long quantity;
+
+    private double revenue;
+}
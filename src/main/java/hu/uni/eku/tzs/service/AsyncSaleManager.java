@@ -0,0 +1,21 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.service.exceptions.SaleQueueFullException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records sales behind the caller's back: accepted sales are queued and written in group-committed batches.
+ */
+public interface AsyncSaleManager {
+
+    /**
+     * Queues the sale for recording.
+     *
+     * @return completed with the outcome once the batch containing the sale is committed
+     * @throws SaleQueueFullException when the queue is full, so the caller should back off and retry
+     */
+    CompletableFuture<SaleRecordResult> record(Sale sale) throws SaleQueueFullException;
+}
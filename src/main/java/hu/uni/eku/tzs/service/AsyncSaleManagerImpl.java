@@ -0,0 +1,157 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.service.exceptions.SaleQueueFullException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Queues sales in a bounded in-memory queue drained by a single writer thread.
+ * The writer takes whatever has accumulated, up to the batch size, and records it through
+ * {@link SaleManager#recordAll(List)}, so a burst of sales costs one transaction per batch instead of one per sale.
+ * Queued sales are lost if the process dies before they are written.
+ * Closing the queue holds the write lock of {@code closing}, so no sale is queued after the writer is told to stop.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "sales.write-behind.enabled", havingValue = "true")
+public class AsyncSaleManagerImpl implements AsyncSaleManager {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final SaleManager saleManager;
+
+    private final BlockingQueue<PendingSale> queue;
+
+    private final int maxBatchSize;
+
+    private final Thread writer;
+
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+    private volatile boolean running = true;
+
+    public AsyncSaleManagerImpl(SaleManager saleManager,
+                                @Value("${sales.write-behind.capacity:10000}") int capacity,
+                                @Value("${sales.write-behind.max-batch-size:1000}") int maxBatchSize) {
+        this.saleManager = saleManager;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::drain, "sale-write-behind");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Stops accepting sales and waits for the writer to record the ones already queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        closing.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        writer.join();
+    }
+
+    @Override
+    public CompletableFuture<SaleRecordResult> record(Sale sale) throws SaleQueueFullException {
+        PendingSale pending = new PendingSale(sale, new CompletableFuture<>());
+        closing.readLock().lock();
+        try {
+            if (!running) {
+                throw new SaleQueueFullException("The sale queue is shutting down");
+            }
+            if (!queue.offer(pending)) {
+                throw new SaleQueueFullException(
+                        String.format("The sale queue is full, %d sales are waiting to be recorded", queue.size()));
+            }
+        } finally {
+            closing.readLock().unlock();
+        }
+        return pending.result;
+    }
+
+    /**
+     * When the writer exits, interrupted or failing, the queue stops accepting sales and the sales still queued
+     * are failed instead of left waiting.
+     */
+    private void drain() {
+        List<PendingSale> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingSale first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // no sale can be queued once running is false under the write lock, so none is left behind
+            closing.writeLock().lock();
+            try {
+                running = false;
+                queue.drainTo(batch);
+            } finally {
+                closing.writeLock().unlock();
+            }
+            SaleQueueFullException stopped = new SaleQueueFullException("The sale queue has stopped");
+            batch.forEach(pending -> pending.result.completeExceptionally(stopped));
+        }
+    }
+
+    /**
+     * A failing batch is retried one sale at a time, so only the sales failing on their own fail their callers.
+     */
+    private void commit(List<PendingSale> batch) {
+        try {
+            List<SaleRecordResult> results = saleManager.recordAll(
+                    batch.stream().map(pending -> pending.sale).collect(Collectors.toList()));
+            for (int index = 0; index < batch.size(); index++) {
+                batch.get(index).result.complete(results.get(index));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Cannot record a queued sale", e);
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.warn("Cannot record a batch of {} queued sales, recording them one by one", batch.size(), e);
+            batch.forEach(pending -> commit(List.of(pending)));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingSale {
+
+        private final Sale sale;
+
+        private final CompletableFuture<SaleRecordResult> result;
+    }
+}
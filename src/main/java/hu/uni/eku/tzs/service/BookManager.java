@@ -17,4 +17,6 @@ public interface BookManager {
 
     void delete(Book book) throws BookNotFoundException;
 
+    void deleteByIsbn(String isbn) throws BookNotFoundException;
+
 }
@@ -2,26 +2,40 @@ package hu.uni.eku.tzs.service;
 
 import hu.uni.eku.tzs.dao.AuthorRepository;
 import hu.uni.eku.tzs.dao.BookRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
+import hu.uni.eku.tzs.dao.ReferenceUpsertRepository;
 import hu.uni.eku.tzs.dao.entity.AuthorEntity;
 import hu.uni.eku.tzs.dao.entity.BookEntity;
 import hu.uni.eku.tzs.model.Author;
 import hu.uni.eku.tzs.model.Book;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.BookAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.BookNotFoundException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class BookManagerImpl implements BookManager {
 
+    private static final String NOT_FOUND = "Cannot find book with ISBN %s";
+
     private final BookRepository bookRepository;
 
     private final AuthorRepository authorRepository;
 
+    private final KeyedInsertRepository keyedInsertRepository;
+
+    private final ReferenceUpsertRepository referenceUpsertRepository;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
     private static Book convertBookEntity2Model(BookEntity bookEntity) {
         return new Book(
             bookEntity.getIsbn(),
@@ -54,19 +68,25 @@ public class BookManagerImpl implements BookManager {
     }
 
     @Override
+    @Transactional(rollbackFor = BookAlreadyExistsException.class)
     public Book record(Book book) throws BookAlreadyExistsException {
-        if (bookRepository.findById(book.getIsbn()).isPresent()) {
+        if (existenceFilterManager.mightExist(KeyedTable.BOOKS, book.getIsbn())
+            && bookRepository.existsById(book.getIsbn())) {
             throw new BookAlreadyExistsException();
         }
         AuthorEntity authorEntity = this.readOrRecordAuthor(book.getAuthor());
-        BookEntity bookEntity = bookRepository.save(
-            BookEntity.builder()
-                .isbn(book.getIsbn())
-                .author(authorEntity)
-                .title(book.getTitle())
-                .language(book.getLanguage())
-                .build()
-        );
+        BookEntity bookEntity = BookEntity.builder()
+            .isbn(book.getIsbn())
+            .author(authorEntity)
+            .title(book.getTitle())
+            .language(book.getLanguage())
+            .build();
+        try {
+            keyedInsertRepository.insertBook(bookEntity);
+        } catch (DuplicateKeyException e) {
+            throw new BookAlreadyExistsException();
+        }
+        existenceFilterManager.added(KeyedTable.BOOKS, book.getIsbn());
         return convertBookEntity2Model(bookEntity);
     }
 
@@ -74,7 +94,7 @@ public class BookManagerImpl implements BookManager {
     public Book readByIsbn(String isbn) throws BookNotFoundException {
         Optional<BookEntity> entity = bookRepository.findById(isbn);
         if (entity.isEmpty()) {
-            throw new BookNotFoundException(String.format("Cannot find book with ISBN %s", isbn));
+            throw new BookNotFoundException(String.format(NOT_FOUND, isbn));
         }
 
         return convertBookEntity2Model(entity.get());
@@ -95,21 +115,34 @@ public class BookManagerImpl implements BookManager {
     @Override
     public void delete(Book book) {
         bookRepository.delete(convertBookModel2Entity(book));
+        existenceFilterManager.removed(KeyedTable.BOOKS, book.getIsbn());
+    }
 
+    @Override
+    public void deleteByIsbn(String isbn) throws BookNotFoundException {
+        if (bookRepository.deleteIfPresent(isbn) == 0) {
+            throw new BookNotFoundException(String.format(NOT_FOUND, isbn));
+        }
+        existenceFilterManager.removed(KeyedTable.BOOKS, isbn);
     }
 
+    /**
+     * Reads an existing author with a single statement. A missing one is created by an upsert with its ID kept,
+     * so concurrent books of a new author do not fail on each other. The upsert leaves an author recorded
+     * concurrently untouched, so the author is read again to return what is stored. An author without ID is
+     * given a generated one.
+     */
     private AuthorEntity readOrRecordAuthor(Author author) {
-        if (authorRepository.findById(author.getId()).isPresent()) {
-            return authorRepository.findById(author.getId()).get();
+        AuthorEntity authorEntity = convertAuthorModel2Entity(author);
+        if (author.getId() == 0) {
+            return authorRepository.save(authorEntity);
         }
-        return authorRepository.save(
-            AuthorEntity.builder()
-                .id(author.getId())
-                .firstName(author.getFirstName())
-                .lastName(author.getLastName())
-                .nationality(author.getNationality())
-                .build()
-        );
+        Optional<AuthorEntity> recorded = authorRepository.findById(author.getId());
+        if (recorded.isPresent()) {
+            return recorded.get();
+        }
+        referenceUpsertRepository.upsertAuthors(List.of(authorEntity));
+        return authorRepository.findById(author.getId()).orElseThrow();
     }
 
 }
@@ -0,0 +1,9 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.CacheStatistics;
+
+import java.util.List;
+
+public interface CacheStatisticsManager {
+    List<CacheStatistics> readAll();
+}
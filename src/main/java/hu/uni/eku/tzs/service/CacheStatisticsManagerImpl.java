@@ -0,0 +1,42 @@
+package hu.uni.eku.tzs.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import hu.uni.eku.tzs.model.CacheStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticsManagerImpl implements CacheStatisticsManager {
+
+    private final CacheManager cacheManager;
+
+    @Override
+    public List<CacheStatistics> readAll() {
+        return cacheManager.getCacheNames()
+                .stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(cache -> cache.getNativeCache() instanceof Cache)
+                .map(cache -> convertCacheStats2Model(cache.getName(), (Cache<?, ?>) cache.getNativeCache()))
+                .collect(Collectors.toList());
+    }
+
+    private static CacheStatistics convertCacheStats2Model(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(
+                name,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
+        );
+    }
+}
@@ -0,0 +1,36 @@
+package hu.uni.eku.tzs.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a line of comma separated values. A field may be enclosed in double quotes to contain commas,
+ * with double quotes in it doubled.
+ */
+final class CsvFields {
+
+    private CsvFields() {
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append(c);
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -16,4 +16,6 @@ public interface CustomerManager {
     Customer modify(Customer customer);
 
     void delete(Customer customer);
+
+    void deleteById(int id) throws CustomerNotFoundException;
 }
\ No newline at end of file
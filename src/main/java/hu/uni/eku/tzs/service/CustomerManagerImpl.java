@@ -1,11 +1,17 @@
 package hu.uni.eku.tzs.service;
 
+import hu.uni.eku.tzs.config.CacheConfig;
 import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.entity.CustomerEntity;
 import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.CustomerAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.CustomerNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
@@ -17,8 +23,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CustomerManagerImpl implements CustomerManager {
 
+    private static final String NOT_FOUND = "Cannot find customer with ID %d";
+
     private final CustomerRepository customerRepository;
 
+    private final KeyedInsertRepository keyedInsertRepository;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
     private static Customer convertCustomerEntity2Model(CustomerEntity customerEntity) {
         return new Customer(
                 customerEntity.getId(),
@@ -39,25 +51,30 @@ public class CustomerManagerImpl implements CustomerManager {
 
     @Override
     public Customer record(Customer customer) throws CustomerAlreadyExistsException {
-        if (customerRepository.findById(customer.getId()).isPresent()) {
-            throw new CustomerAlreadyExistsException();
+        CustomerEntity customerEntity = convertCustomerModel2Entity(customer);
+        if (customer.getId() == 0) {
+            customerEntity = customerRepository.save(customerEntity);
+        } else {
+            if (existenceFilterManager.mightExist(KeyedTable.CUSTOMERS, customer.getId())
+                    && customerRepository.existsById(customer.getId())) {
+                throw new CustomerAlreadyExistsException();
+            }
+            try {
+                keyedInsertRepository.insertCustomer(customerEntity);
+            } catch (DuplicateKeyException e) {
+                throw new CustomerAlreadyExistsException();
+            }
         }
-        CustomerEntity customerEntity = customerRepository.save(
-                CustomerEntity.builder()
-                        .id(customer.getId())
-                        .firstName(customer.getFirstName())
-                        .middleInitial(customer.getMiddleInitial())
-                        .lastName(customer.getLastName())
-                        .build()
-        );
+        existenceFilterManager.added(KeyedTable.CUSTOMERS, customerEntity.getId());
         return convertCustomerEntity2Model(customerEntity);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS, key = "#id")
     public Customer readById(int id) throws CustomerNotFoundException {
         Optional<CustomerEntity> entity = customerRepository.findById(id);
         if (entity.isEmpty()) {
-            throw new CustomerNotFoundException(String.format("Cannot find customer with ID %d", id));
+            throw new CustomerNotFoundException(String.format(NOT_FOUND, id));
         }
         return convertCustomerEntity2Model(entity.get());
     }
@@ -72,13 +89,25 @@ public class CustomerManagerImpl implements CustomerManager {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customer.id")
     public Customer modify(Customer customer) {
         CustomerEntity entity = convertCustomerModel2Entity(customer);
         return convertCustomerEntity2Model(customerRepository.save(entity));
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customer.id")
     public void delete(Customer customer) {
         customerRepository.delete(convertCustomerModel2Entity(customer));
+        existenceFilterManager.removed(KeyedTable.CUSTOMERS, customer.getId());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#id")
+    public void deleteById(int id) throws CustomerNotFoundException {
+        if (customerRepository.deleteIfPresent(id) == 0) {
+            throw new CustomerNotFoundException(String.format(NOT_FOUND, id));
+        }
+        existenceFilterManager.removed(KeyedTable.CUSTOMERS, id);
     }
 }
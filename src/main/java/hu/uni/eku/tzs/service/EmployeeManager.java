@@ -16,4 +16,6 @@ public interface EmployeeManager {
     Employee modify(Employee employee);
 
     void delete(Employee employee);
+
+    void deleteById(int id) throws EmployeeNotFoundException;
 }
@@ -1,11 +1,17 @@
 package hu.uni.eku.tzs.service;
 
+import hu.uni.eku.tzs.config.CacheConfig;
 import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
 import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.EmployeeAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.EmployeeNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
@@ -17,8 +23,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EmployeeManagerImpl implements EmployeeManager {
 
+    private static final String NOT_FOUND = "Cannot find employee with ID %d";
+
     private final EmployeeRepository employeeRepository;
 
+    private final KeyedInsertRepository keyedInsertRepository;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
     private static Employee convertEmployeeEntity2Model(EmployeeEntity employeeEntity) {
         return new Employee(
                 employeeEntity.getId(),
@@ -39,25 +51,30 @@ public class EmployeeManagerImpl implements EmployeeManager {
 
     @Override
     public Employee record(Employee employee) throws EmployeeAlreadyExistsException {
-        if (employeeRepository.findById(employee.getId()).isPresent()) {
-            throw new EmployeeAlreadyExistsException();
+        EmployeeEntity employeeEntity = convertEmployeeModel2Entity(employee);
+        if (employee.getId() == 0) {
+            employeeEntity = employeeRepository.save(employeeEntity);
+        } else {
+            if (existenceFilterManager.mightExist(KeyedTable.EMPLOYEES, employee.getId())
+                    && employeeRepository.existsById(employee.getId())) {
+                throw new EmployeeAlreadyExistsException();
+            }
+            try {
+                keyedInsertRepository.insertEmployee(employeeEntity);
+            } catch (DuplicateKeyException e) {
+                throw new EmployeeAlreadyExistsException();
+            }
         }
-        EmployeeEntity employeeEntity = employeeRepository.save(
-                EmployeeEntity.builder()
-                        .id(employee.getId())
-                        .firstName(employee.getFirstName())
-                        .middleInitial(employee.getMiddleInitial())
-                        .lastName(employee.getLastName())
-                        .build()
-        );
+        existenceFilterManager.added(KeyedTable.EMPLOYEES, employeeEntity.getId());
         return convertEmployeeEntity2Model(employeeEntity);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEES, key = "#id")
     public Employee readById(int id) throws EmployeeNotFoundException {
         Optional<EmployeeEntity> entity = employeeRepository.findById(id);
         if (entity.isEmpty()) {
-            throw new EmployeeNotFoundException(String.format("Cannot find employee with ID %d", id));
+            throw new EmployeeNotFoundException(String.format(NOT_FOUND, id));
         }
         return convertEmployeeEntity2Model(entity.get());
     }
@@ -72,13 +89,25 @@ public class EmployeeManagerImpl implements EmployeeManager {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, key = "#employee.id")
     public Employee modify(Employee employee) {
         EmployeeEntity entity = convertEmployeeModel2Entity(employee);
         return convertEmployeeEntity2Model(employeeRepository.save(entity));
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, key = "#employee.id")
     public void delete(Employee employee) {
         employeeRepository.delete(convertEmployeeModel2Entity(employee));
+        existenceFilterManager.removed(KeyedTable.EMPLOYEES, employee.getId());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES, key = "#id")
+    public void deleteById(int id) throws EmployeeNotFoundException {
+        if (employeeRepository.deleteIfPresent(id) == 0) {
+            throw new EmployeeNotFoundException(String.format(NOT_FOUND, id));
+        }
+        existenceFilterManager.removed(KeyedTable.EMPLOYEES, id);
     }
 }
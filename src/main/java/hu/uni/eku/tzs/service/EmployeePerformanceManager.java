@@ -0,0 +1,20 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+
+import java.util.List;
+
+/**
+ * Serves the units sold and the revenue of the sales persons from in-memory counters,
+ * seeded from the sales table and following the committed writes of {@link SaleManager}.
+ */
+public interface EmployeePerformanceManager {
+
+    SalesTotal readTotal(int employeeId);
+
+    /**
+     * Reads the {@code top} sales persons by the measure in descending order, every one of them if {@code top} is 0.
+     */
+    List<SalesTotal> readTop(SalesMeasure by, int top);
+}
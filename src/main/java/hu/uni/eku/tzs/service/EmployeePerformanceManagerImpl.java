@@ -0,0 +1,119 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a pair of striped counters per sales person, so concurrent sale writes add to them without contending.
+ * The counters are seeded before the application serves requests, so no write is missed or counted twice.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmployeePerformanceManagerImpl implements EmployeePerformanceManager {
+
+    private final SaleRepository saleRepository;
+
+    private volatile Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Seeds fresh counters and swaps them in, so the counters are never read half seeded.
+     */
+    @PostConstruct
+    public void seed() {
+        Map<Integer, Counters> seeded = new ConcurrentHashMap<>();
+        saleRepository.sumBySalesPerson(Pageable.unpaged()).forEach(total -> {
+            Counters employeeCounters = seeded.computeIfAbsent(total.getId(), id -> new Counters());
+            employeeCounters.quantity.add(total.getQuantity());
+            employeeCounters.revenue.add(total.getRevenue());
+        });
+        counters = seeded;
+        log.info("Seeded the sales counters of {} sales persons", seeded.size());
+    }
+
+    /**
+     * A write committed while the counters are re-seeded may be counted twice or missed until the next import.
+     */
+    @EventListener(SalesImportedEvent.class)
+    public void onSalesImported() {
+        seed();
+    }
+
+    /**
+     * The revenue is counted with the price at write time, so a price change would leave it stale.
+     */
+    @TransactionalEventListener(value = ProductPricesChangedEvent.class, fallbackExecution = true)
+    public void onProductPricesChanged() {
+        seed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        event.getRemoved().forEach(sale -> count(sale, -1));
+        event.getAdded().forEach(sale -> count(sale, 1));
+    }
+
+    @Override
+    public SalesTotal readTotal(int employeeId) {
+        Counters employeeCounters = counters.get(employeeId);
+        return employeeCounters != null ? employeeCounters.toTotal(employeeId) : new SalesTotal(employeeId, 0, 0);
+    }
+
+    @Override
+    public List<SalesTotal> readTop(SalesMeasure by, int top) {
+        Comparator<SalesTotal> order = by == SalesMeasure.QUANTITY
+                ? Comparator.comparingLong(SalesTotal::getQuantity)
+                : Comparator.comparingDouble(SalesTotal::getRevenue);
+        PriorityQueue<SalesTotal> selected = new PriorityQueue<>(order);
+        counters.forEach((employeeId, employeeCounters) -> {
+            selected.add(employeeCounters.toTotal(employeeId));
+            if (top > 0 && selected.size() > top) {
+                selected.poll();
+            }
+        });
+        List<SalesTotal> totals = new ArrayList<>(selected);
+        totals.sort(order.reversed());
+        return totals;
+    }
+
+    private void count(Sale sale, int sign) {
+        Counters employeeCounters = countersOf(sale.getSalesPerson().getId());
+        employeeCounters.quantity.add((long) sign * sale.getQuantity());
+        employeeCounters.revenue.add((double) sign * sale.getQuantity() * sale.getProduct().getPrice());
+    }
+
+    private Counters countersOf(int employeeId) {
+        return counters.computeIfAbsent(employeeId, id -> new Counters());
+    }
+
+    private static final class Counters {
+        private final LongAdder quantity = new LongAdder();
+
+        private final DoubleAdder revenue = new DoubleAdder();
+
+        /**
+         * The two sums are read one after the other, so a total may include only one half of a concurrent write.
+         */
+        private SalesTotal toTotal(int employeeId) {
+            return new SalesTotal(employeeId, quantity.sum(), revenue.sum());
+        }
+    }
+}
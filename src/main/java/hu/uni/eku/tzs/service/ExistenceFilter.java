@@ -0,0 +1,122 @@
+package hu.uni.eku.tzs.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter of keys, sixteen 4-bit counters packed into every long.
+ * A key that was never added is answered as absent except for the given false positive rate, an added key is
+ * never answered as absent until it is removed. A saturated counter is never decremented, so it only costs
+ * accuracy. Removing a key that was never added, e.g. deleting a book that does not exist, may make other keys
+ * look absent, so a negative answer must still be backed by a unique key.
+ * Thread-safe, the counters are updated with compare-and-set.
+ */
+class ExistenceFilter {
+
+    private static final int BITS_PER_COUNTER = 4;
+
+    private static final int COUNTERS_PER_WORD = Long.SIZE / BITS_PER_COUNTER;
+
+    private static final long MAX_COUNT = (1L << BITS_PER_COUNTER) - 1;
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final int counters;
+
+    private final int hashes;
+
+    /**
+     * Sizes the filter for the given number of keys, the optimal {@code -n ln p / (ln 2)^2} counters
+     * and {@code (m / n) ln 2} hashes.
+     */
+    ExistenceFilter(long expectedKeys, double falsePositiveRate) {
+        long keys = Math.max(1, expectedKeys);
+        long optimalCounters = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.counters = (int) Math.min(Math.max(COUNTERS_PER_WORD, optimalCounters),
+                (long) Integer.MAX_VALUE - COUNTERS_PER_WORD);
+        this.hashes = (int) Math.max(1, Math.round((double) counters / keys * LN2));
+        this.words = new AtomicLongArray((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    }
+
+    /**
+     * Spreads the hash code of the key over 64 bits with the finalizer of SplitMix64,
+     * the hash codes of consecutive integer keys are consecutive themselves.
+     */
+    private static long hash(Object key) {
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    boolean mightContain(Object key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            if (count(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(Object key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            update(index(hash, i), 1);
+        }
+    }
+
+    void remove(Object key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            update(index(hash, i), -1);
+        }
+    }
+
+    int getCounters() {
+        return counters;
+    }
+
+    int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * The i-th counter of the key, derived from the two halves of its hash as in Kirsch and Mitzenmacher,
+     * "Less Hashing, Same Performance".
+     */
+    private int index(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return Math.floorMod(combined, counters);
+    }
+
+    private long count(int index) {
+        long word = words.get(index / COUNTERS_PER_WORD);
+        return (word >>> shiftOf(index)) & MAX_COUNT;
+    }
+
+    /**
+     * Counters stop at their maximum and are never decremented from there, they no longer know how many keys
+     * share them. Counters at zero are not decremented either.
+     */
+    private void update(int index, int delta) {
+        int word = index / COUNTERS_PER_WORD;
+        int shift = shiftOf(index);
+        while (true) {
+            long current = words.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+                return;
+            }
+            long updated = current + ((long) delta << shift);
+            if (words.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static int shiftOf(int index) {
+        return (index % COUNTERS_PER_WORD) * BITS_PER_COUNTER;
+    }
+}
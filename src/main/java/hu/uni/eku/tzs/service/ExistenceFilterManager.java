@@ -0,0 +1,25 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.KeyedTable;
+
+/**
+ * Answers whether a row may exist under a primary key without querying the database.
+ * A negative answer is only probable: writers the filters do not hear of, e.g. imports or other instances,
+ * are caught by the primary key itself.
+ */
+public interface ExistenceFilterManager {
+
+    /**
+     * Tells whether the table may have a row with the key, true until the filter of the table is loaded.
+     */
+    boolean mightExist(KeyedTable table, Object key);
+
+    void added(KeyedTable table, Object key);
+
+    void removed(KeyedTable table, Object key);
+
+    /**
+     * Reloads the filter of every table from its primary keys, dropping the keys of rows deleted since.
+     */
+    void rebuild();
+}
@@ -0,0 +1,136 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.BookRepository;
+import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.model.KeyedTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps a counting Bloom filter of the primary keys of every {@link KeyedTable}, loaded when the application is
+ * ready and rebuilt on a schedule. While a rebuild reads the keys of a table, the keys added and removed go
+ * to both the old and the new filter. A key added while the rebuild has already read past it is missed until the
+ * next rebuild, the primary key catches it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExistenceFilterManagerImpl implements ExistenceFilterManager {
+
+    private static final int PAGE_SIZE = 10000;
+
+    private final SaleRepository saleRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ProductRepository productRepository;
+
+    private final BookRepository bookRepository;
+
+    private final Map<KeyedTable, Filters> filters = createFilters();
+
+    @Value("${existence-filter.expected-keys:100000}")
+    private long expectedKeys;
+
+    @Value("${existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private static Map<KeyedTable, Filters> createFilters() {
+        Map<KeyedTable, Filters> filters = new EnumMap<>(KeyedTable.class);
+        for (KeyedTable table : KeyedTable.values()) {
+            filters.put(table, new Filters());
+        }
+        return filters;
+    }
+
+    @Override
+    public boolean mightExist(KeyedTable table, Object key) {
+        ExistenceFilter loaded = filters.get(table).loaded;
+        return loaded == null || loaded.mightContain(key);
+    }
+
+    @Override
+    public void added(KeyedTable table, Object key) {
+        Filters tableFilters = filters.get(table);
+        ExistenceFilter loaded = tableFilters.loaded;
+        if (loaded != null) {
+            loaded.add(key);
+        }
+        ExistenceFilter loading = tableFilters.loading;
+        if (loading != null) {
+            loading.add(key);
+        }
+    }
+
+    @Override
+    public void removed(KeyedTable table, Object key) {
+        Filters tableFilters = filters.get(table);
+        ExistenceFilter loaded = tableFilters.loaded;
+        if (loaded != null) {
+            loaded.remove(key);
+        }
+        ExistenceFilter loading = tableFilters.loading;
+        if (loading != null) {
+            loading.remove(key);
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${existence-filter.rebuild-cron:-}")
+    public synchronized void rebuild() {
+        load(KeyedTable.SALES, saleRepository.count(), Integer.MIN_VALUE, saleRepository::findIdsAfter);
+        load(KeyedTable.CUSTOMERS, customerRepository.count(), Integer.MIN_VALUE, customerRepository::findIdsAfter);
+        load(KeyedTable.EMPLOYEES, employeeRepository.count(), Integer.MIN_VALUE, employeeRepository::findIdsAfter);
+        load(KeyedTable.PRODUCTS, productRepository.count(), Integer.MIN_VALUE, productRepository::findIdsAfter);
+        load(KeyedTable.BOOKS, bookRepository.count(), "", bookRepository::findIsbnsAfter);
+    }
+
+    /**
+     * Reads the keys in pages following the last key of the previous page. Sizes the filter for twice the current
+     * row count, so the table may double before the false positive rate grows past the configured one.
+     */
+    private <K> void load(KeyedTable table, long rows, K first, BiFunction<K, Pageable, List<K>> findKeysAfter) {
+        ExistenceFilter filter = new ExistenceFilter(Math.max(expectedKeys, 2 * rows), falsePositiveRate);
+        Filters tableFilters = filters.get(table);
+        tableFilters.loading = filter;
+        long loaded = 0;
+        try {
+            List<K> keys = findKeysAfter.apply(first, PageRequest.of(0, PAGE_SIZE));
+            while (!keys.isEmpty()) {
+                keys.forEach(filter::add);
+                loaded += keys.size();
+                keys = findKeysAfter.apply(keys.get(keys.size() - 1), PageRequest.of(0, PAGE_SIZE));
+            }
+            tableFilters.loaded = filter;
+        } finally {
+            tableFilters.loading = null;
+        }
+        log.info("Loaded {} keys of {} into an existence filter of {} counters and {} hashes",
+                loaded, table, filter.getCounters(), filter.getHashes());
+    }
+
+    private static class Filters {
+
+        private volatile ExistenceFilter loaded;
+
+        private volatile ExistenceFilter loading;
+    }
+}
@@ -0,0 +1,31 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Forgets the idempotency keys older than the retention, so the table stays small.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyPurger {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${sales.idempotency.retention:P1D}")
+    private Duration retention;
+
+    @Scheduled(cron = "${sales.idempotency.purge-cron:-}")
+    public void purge() {
+        int purged = idempotencyKeyRepository.deleteAllCreatedBefore(LocalDateTime.now().minus(retention));
+        log.info("Purged {} idempotency keys older than {}", purged, retention);
+    }
+}
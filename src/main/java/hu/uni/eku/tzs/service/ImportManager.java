@@ -0,0 +1,25 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.ImportProgress;
+import hu.uni.eku.tzs.model.ImportTable;
+import hu.uni.eku.tzs.service.exceptions.ImportAlreadyRunningException;
+import hu.uni.eku.tzs.service.exceptions.ImportFileNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.ImportNotFoundException;
+
+/**
+ * Bulk loads CSV files, optionally gzipped, from the import directory into the tables.
+ */
+public interface ImportManager {
+
+    /**
+     * Starts importing the file into the table in the background, resuming after the lines an earlier,
+     * unfinished import of the same file has written. At most one import per table runs at a time.
+     */
+    ImportProgress start(ImportTable table, String fileName, boolean header)
+            throws ImportAlreadyRunningException, ImportFileNotFoundException;
+
+    /**
+     * Reads the progress of the last import into the table since the application started.
+     */
+    ImportProgress readProgress(ImportTable table) throws ImportNotFoundException;
+}
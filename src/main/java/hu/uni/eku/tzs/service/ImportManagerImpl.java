@@ -0,0 +1,373 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.ImportBatchRepository;
+import hu.uni.eku.tzs.dao.ImportCheckpointRepository;
+import hu.uni.eku.tzs.dao.entity.ImportCheckpointEntity;
+import hu.uni.eku.tzs.model.ImportProgress;
+import hu.uni.eku.tzs.model.ImportStatus;
+import hu.uni.eku.tzs.model.ImportTable;
+import hu.uni.eku.tzs.service.exceptions.ImportAlreadyRunningException;
+import hu.uni.eku.tzs.service.exceptions.ImportFileNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.ImportNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams an import file line by line on a reader thread and hands it to the workers in chunks,
+ * which parse the lines and write them as batched upserts. At most two chunks per worker are in flight,
+ * so a file of any size is imported in constant memory.
+ * Chunks finish out of order; the checkpoint only advances over the lines written without a gap, and as the
+ * writes are upserts, the lines a resumed import writes again are harmless.
+ * The rows are written past the other managers, so the imported keys are added to the existence filters and,
+ * once the import ends, the cache of the table is cleared and the views of the sales are rebuilt.
+ */
+@Slf4j
+@Service
+public class ImportManagerImpl implements ImportManager {
+
+    /**
+     * The sale time of lines without one, the same sentinel sales_partitioning.sql backfills. A fixed time keeps
+     * the lines a resumed import writes again unchanged, and keeps old sales out of the recent time ranges.
+     */
+    static final LocalDateTime UNKNOWN_SOLD_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Map<ImportTable, String> CACHES = new EnumMap<>(Map.of(
+            ImportTable.CUSTOMERS, CacheConfig.CUSTOMERS,
+            ImportTable.EMPLOYEES, CacheConfig.EMPLOYEES,
+            ImportTable.PRODUCTS, CacheConfig.PRODUCTS));
+
+    private final ImportBatchRepository importBatchRepository;
+
+    private final ImportCheckpointRepository importCheckpointRepository;
+
+    private final SaleManager saleManager;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Path directory;
+
+    private final int chunkSize;
+
+    private final int workers;
+
+    private final Map<ImportTable, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService readerThreads;
+
+    private final ExecutorService workerThreads;
+
+    public ImportManagerImpl(ImportBatchRepository importBatchRepository,
+                             ImportCheckpointRepository importCheckpointRepository,
+                             SaleManager saleManager,
+                             ExistenceFilterManager existenceFilterManager,
+                             CacheManager cacheManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${imports.directory:/import}") String directory,
+                             @Value("${imports.chunk-size:5000}") int chunkSize,
+                             @Value("${imports.workers:4}") int workers) {
+        this.importBatchRepository = importBatchRepository;
+        this.importCheckpointRepository = importCheckpointRepository;
+        this.saleManager = saleManager;
+        this.existenceFilterManager = existenceFilterManager;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.readerThreads = Executors.newCachedThreadPool(daemonThreads("import-reader-"));
+        this.workerThreads = Executors.newFixedThreadPool(workers, daemonThreads("import-worker-"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readerThreads.shutdownNow();
+        workerThreads.shutdownNow();
+    }
+
+    @Override
+    public synchronized ImportProgress start(ImportTable table, String fileName, boolean header)
+            throws ImportAlreadyRunningException, ImportFileNotFoundException {
+        ImportJob last = jobs.get(table);
+        if (last != null && last.status == ImportStatus.RUNNING) {
+            throw new ImportAlreadyRunningException(String.format("An import into %s is already running", table));
+        }
+        ImportJob job = new ImportJob(table, resolve(fileName), header);
+        jobs.put(table, job);
+        readerThreads.execute(job::run);
+        return job.toProgress();
+    }
+
+    @Override
+    public ImportProgress readProgress(ImportTable table) throws ImportNotFoundException {
+        ImportJob job = jobs.get(table);
+        if (job == null) {
+            throw new ImportNotFoundException(String.format("No import into %s has been started", table));
+        }
+        return job.toProgress();
+    }
+
+    /**
+     * Only files within the import directory can be imported.
+     */
+    private Path resolve(String fileName) throws ImportFileNotFoundException {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new ImportFileNotFoundException(
+                    String.format("Cannot read %s in the import directory %s", fileName, directory));
+        }
+        return file;
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static Object[] parse(ImportTable table, String line) {
+        List<String> fields = CsvFields.split(line);
+        if (fields.size() < table.getColumnCount()) {
+            throw new IllegalArgumentException(
+                    String.format("%d fields instead of %d", fields.size(), table.getColumnCount()));
+        }
+        switch (table) {
+          case CUSTOMERS:
+          case EMPLOYEES:
+              return new Object[] {
+                  Integer.parseInt(fields.get(0)), fields.get(1), emptyToNull(fields.get(2)), fields.get(3)};
+          case PRODUCTS:
+              return new Object[] {Integer.parseInt(fields.get(0)), fields.get(1), Double.parseDouble(fields.get(2))};
+          case SALES:
+              return new Object[] {
+                  Integer.parseInt(fields.get(0)),
+                  Integer.parseInt(fields.get(1)),
+                  Integer.parseInt(fields.get(2)),
+                  Integer.parseInt(fields.get(3)),
+                  Integer.parseInt(fields.get(4)),
+                  fields.size() > 5 && !fields.get(5).isEmpty() ? LocalDateTime.parse(fields.get(5))
+                          : UNKNOWN_SOLD_AT};
+          default:
+              throw new IllegalArgumentException(String.format("Unknown table %s", table));
+        }
+    }
+
+    private static String emptyToNull(String field) {
+        return field.isEmpty() ? null : field;
+    }
+
+    private class ImportJob {
+
+        private final ImportTable table;
+
+        private final Path file;
+
+        private final boolean header;
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final Semaphore inFlight = new Semaphore(2 * workers);
+
+        /**
+         * The first and last line of the chunks written after a gap, keyed by their first line.
+         */
+        private final TreeMap<Long, Long> written = new TreeMap<>();
+
+        private volatile ImportStatus status = ImportStatus.RUNNING;
+
+        private long linesResumed;
+
+        private long linesDone;
+
+        private LocalDateTime finishedAt;
+
+        private volatile String error;
+
+        ImportJob(ImportTable table, Path file, boolean header) {
+            this.table = table;
+            this.file = file;
+            this.header = header;
+        }
+
+        void run() {
+            String checkpoint = checkpointName();
+            long resumed = importCheckpointRepository.findById(checkpoint)
+                    .map(ImportCheckpointEntity::getLinesDone)
+                    .orElse(0L);
+            synchronized (this) {
+                linesResumed = resumed;
+                linesDone = resumed;
+            }
+            log.info("Importing {} into {}, resuming after line {}", file, table, resumed);
+            try (BufferedReader reader = open(file)) {
+                if (header) {
+                    reader.readLine();
+                }
+                readChunks(reader, resumed);
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+            // every permit is back once the chunks in flight are written
+            inFlight.acquireUninterruptibly(2 * workers);
+            finish(checkpoint);
+        }
+
+        private void readChunks(BufferedReader reader, long resumed) throws IOException, InterruptedException {
+            long line = 0;
+            while (line < resumed && reader.readLine() != null) {
+                line++;
+            }
+            List<String> chunk = new ArrayList<>(chunkSize);
+            for (String text = reader.readLine(); text != null && error == null; text = reader.readLine()) {
+                chunk.add(text);
+                if (chunk.size() == chunkSize) {
+                    submit(chunk, line + 1);
+                    line += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty() && error == null) {
+                submit(chunk, line + 1);
+            }
+        }
+
+        private void submit(List<String> lines, long firstLine) throws InterruptedException {
+            inFlight.acquire();
+            try {
+                workerThreads.execute(() -> {
+                    try {
+                        List<Object[]> rows = parse(lines, firstLine);
+                        importBatchRepository.upsertAll(table, rows);
+                        rows.forEach(row -> existenceFilterManager.added(table.getKeyedTable(), row[0]));
+                        chunkWritten(firstLine, firstLine + lines.size() - 1);
+                    } catch (RuntimeException e) {
+                        fail(e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        private List<Object[]> parse(List<String> lines, long firstLine) {
+            List<Object[]> rows = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).isBlank()) {
+                    continue;
+                }
+                try {
+                    rows.add(ImportManagerImpl.parse(table, lines.get(i)));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(String.format("Cannot parse line %d of %s: %s",
+                            firstLine + i, file.getFileName(), e.getMessage()), e);
+                }
+            }
+            return rows;
+        }
+
+        private synchronized void chunkWritten(long firstLine, long lastLine) {
+            written.put(firstLine, lastLine);
+            long before = linesDone;
+            while (!written.isEmpty() && written.firstKey() == linesDone + 1) {
+                linesDone = written.pollFirstEntry().getValue();
+            }
+            if (linesDone != before) {
+                importCheckpointRepository.save(new ImportCheckpointEntity(checkpointName(), linesDone,
+                        LocalDateTime.now()));
+            }
+        }
+
+        private void fail(Exception e) {
+            if (error == null) {
+                error = e.getMessage();
+                log.error("Import of {} into {} failed", file, table, e);
+            }
+        }
+
+        private void finish(String checkpoint) {
+            if (error == null) {
+                // a completed file is imported from its start the next time
+                importCheckpointRepository.findById(checkpoint).ifPresent(importCheckpointRepository::delete);
+            }
+            // a failed import may have written part of the file as well
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            synchronized (this) {
+                finishedAt = LocalDateTime.now();
+                status = error == null ? ImportStatus.COMPLETED : ImportStatus.FAILED;
+            }
+            log.info("Import of {} into {} {} after line {}", file, table, status, linesDone);
+        }
+
+        private void refresh() {
+            if (table == ImportTable.SALES) {
+                saleManager.rebuildTotals();
+                eventPublisher.publishEvent(new SalesImportedEvent());
+            } else {
+                cacheManager.getCache(CACHES.get(table)).clear();
+                if (table == ImportTable.PRODUCTS) {
+                    eventPublisher.publishEvent(new ProductPricesChangedEvent());
+                }
+            }
+        }
+
+        private String checkpointName() {
+            return String.format("%s:%s", table, directory.relativize(file));
+        }
+
+        synchronized ImportProgress toProgress() {
+            return new ImportProgress(table, directory.relativize(file).toString(), status, linesResumed, linesDone,
+                    startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+
+import java.util.List;
+
+/**
+ * Ranks the products by their units sold or revenue in memory,
+ * seeded from the sales table and following the committed writes of {@link SaleManager}.
+ */
+public interface ProductLeaderboardManager {
+
+    /**
+     * Reads the {@code top} products by the measure in descending order, every sold product if {@code top} is 0.
+     */
+    List<SalesTotal> readTop(SalesMeasure by, int top);
+}
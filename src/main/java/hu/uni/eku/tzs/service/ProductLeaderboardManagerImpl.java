@@ -0,0 +1,154 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the totals of every sold product in two ordered sets, one per measure.
+ * A sale moves its product within the sets in logarithmic time, and a ranking only walks the head of a set.
+ * Deletes can move a product down, which is why every product is ranked rather than only the current top.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductLeaderboardManagerImpl implements ProductLeaderboardManager {
+
+    private static final Comparator<Entry> BY_QUANTITY = Comparator.comparingLong((Entry entry) -> entry.quantity)
+            .reversed()
+            .thenComparingInt(entry -> entry.productId);
+
+    private static final Comparator<Entry> BY_REVENUE = Comparator.comparingDouble((Entry entry) -> entry.revenue)
+            .reversed()
+            .thenComparingInt(entry -> entry.productId);
+
+    private final SaleRepository saleRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private final NavigableSet<Entry> byQuantity = new TreeSet<>(BY_QUANTITY);
+
+    private final NavigableSet<Entry> byRevenue = new TreeSet<>(BY_REVENUE);
+
+    /**
+     * Seeds the rankings before the application serves requests, so no write is missed or counted twice.
+     */
+    @PostConstruct
+    public void seed() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byQuantity.clear();
+            byRevenue.clear();
+            saleRepository.sumByProduct(Pageable.unpaged())
+                    .forEach(total -> add(total.getId(), total.getQuantity(), total.getRevenue()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Seeded the leaderboard with {} products", entries.size());
+    }
+
+    /**
+     * A write committed while the rankings are re-seeded may be counted twice until the next import.
+     */
+    @EventListener(SalesImportedEvent.class)
+    public void onSalesImported() {
+        seed();
+    }
+
+    /**
+     * The revenue is ranked with the price at write time, so a price change would leave it stale.
+     */
+    @TransactionalEventListener(value = ProductPricesChangedEvent.class, fallbackExecution = true)
+    public void onProductPricesChanged() {
+        seed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.getRemoved().forEach(sale -> add(sale, -1));
+            event.getAdded().forEach(sale -> add(sale, 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SalesTotal> readTop(SalesMeasure by, int top) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> ranking = by == SalesMeasure.QUANTITY ? byQuantity : byRevenue;
+            List<SalesTotal> totals = new ArrayList<>(top > 0 ? Math.min(top, ranking.size()) : ranking.size());
+            for (Entry entry : ranking) {
+                if (top > 0 && totals.size() == top) {
+                    break;
+                }
+                totals.add(new SalesTotal(entry.productId, entry.quantity, entry.revenue));
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Sale sale, int sign) {
+        long quantity = (long) sign * sale.getQuantity();
+        add(sale.getProduct().getId(), quantity, quantity * sale.getProduct().getPrice());
+    }
+
+    /**
+     * The entry is taken out of the sets while its totals change, as they are part of its position.
+     */
+    private void add(int productId, long quantity, double revenue) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            entry = new Entry(productId);
+            entries.put(productId, entry);
+        } else {
+            byQuantity.remove(entry);
+            byRevenue.remove(entry);
+        }
+        entry.quantity += quantity;
+        entry.revenue += revenue;
+        if (entry.quantity == 0) {
+            entries.remove(productId);
+        } else {
+            byQuantity.add(entry);
+            byRevenue.add(entry);
+        }
+    }
+
+    private static final class Entry {
+        private final int productId;
+
+        private long quantity;
+
+        private double revenue;
+
+        private Entry(int productId) {
+            this.productId = productId;
+        }
+    }
+}
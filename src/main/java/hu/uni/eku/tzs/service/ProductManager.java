@@ -17,4 +17,6 @@ public interface ProductManager {
     Product modify(Product product);
 
     void delete(Product product);
+
+    void deleteById(int id) throws ProductNotFoundException;
 }
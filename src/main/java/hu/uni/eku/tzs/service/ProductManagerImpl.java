@@ -1,13 +1,21 @@
 package hu.uni.eku.tzs.service;
 
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.ProductRepository;
 import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.model.Product;
 import hu.uni.eku.tzs.service.exceptions.ProductAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.ProductNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -17,8 +25,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductManagerImpl implements ProductManager {
 
+    private static final String NOT_FOUND = "Cannot find product with ID %d";
+
     private final ProductRepository productRepository;
 
+    private final KeyedInsertRepository keyedInsertRepository;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     private static Product convertProductEntity2Model(ProductEntity productEntity) {
         return new Product(
                 productEntity.getId(),
@@ -37,24 +53,30 @@ public class ProductManagerImpl implements ProductManager {
 
     @Override
     public Product record(Product product) throws ProductAlreadyExistsException {
-        if (productRepository.findById(product.getId()).isPresent()) {
-            throw new ProductAlreadyExistsException();
+        ProductEntity productEntity = convertProductModel2Entity(product);
+        if (product.getId() == 0) {
+            productEntity = productRepository.save(productEntity);
+        } else {
+            if (existenceFilterManager.mightExist(KeyedTable.PRODUCTS, product.getId())
+                    && productRepository.existsById(product.getId())) {
+                throw new ProductAlreadyExistsException();
+            }
+            try {
+                keyedInsertRepository.insertProduct(productEntity);
+            } catch (DuplicateKeyException e) {
+                throw new ProductAlreadyExistsException();
+            }
         }
-        ProductEntity productEntity = productRepository.save(
-                ProductEntity.builder()
-                        .id(product.getId())
-                        .name(product.getName())
-                        .price(product.getPrice())
-                        .build()
-        );
+        existenceFilterManager.added(KeyedTable.PRODUCTS, productEntity.getId());
         return convertProductEntity2Model(productEntity);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public Product readById(int id) throws ProductNotFoundException {
         Optional<ProductEntity> entity = productRepository.findById(id);
         if (entity.isEmpty()) {
-            throw new ProductNotFoundException(String.format("Cannot find product with ID %d", id));
+            throw new ProductNotFoundException(String.format(NOT_FOUND, id));
         }
         return convertProductEntity2Model(entity.get());
     }
@@ -68,14 +90,35 @@ public class ProductManagerImpl implements ProductManager {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The product is read first, which the merge of the save needs anyway, to tell whether its price changed.
+     */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#product.id")
     public Product modify(Product product) {
+        Optional<Double> previousPrice = productRepository.findById(product.getId()).map(ProductEntity::getPrice);
         ProductEntity entity = convertProductModel2Entity(product);
-        return convertProductEntity2Model(productRepository.save(entity));
+        Product modified = convertProductEntity2Model(productRepository.save(entity));
+        if (previousPrice.isPresent() && Double.compare(previousPrice.get(), modified.getPrice()) != 0) {
+            eventPublisher.publishEvent(new ProductPricesChangedEvent());
+        }
+        return modified;
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#product.id")
     public void delete(Product product) {
         productRepository.delete(convertProductModel2Entity(product));
+        existenceFilterManager.removed(KeyedTable.PRODUCTS, product.getId());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public void deleteById(int id) throws ProductNotFoundException {
+        if (productRepository.deleteIfPresent(id) == 0) {
+            throw new ProductNotFoundException(String.format(NOT_FOUND, id));
+        }
+        existenceFilterManager.removed(KeyedTable.PRODUCTS, id);
     }
 }
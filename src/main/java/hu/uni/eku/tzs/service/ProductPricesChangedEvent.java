@@ -0,0 +1,8 @@
+package hu.uni.eku.tzs.service;
+
+/**
+ * Published when product prices may have changed, by {@link ProductManager} and by imports of the products.
+ * The totals of the sales are summed with the price at write time, so they are recomputed from the table.
+ */
+public class ProductPricesChangedEvent {
+}
@@ -0,0 +1,29 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.QueryBudgetViolation;
+import hu.uni.eku.tzs.model.QueryStatistics;
+
+import java.util.List;
+
+public interface QueryDiagnosticsManager {
+
+    /**
+     * Starts counting the statements the current thread issues, scopes can be nested.
+     */
+    void openScope();
+
+    /**
+     * Stops counting the statements of the innermost scope of the current thread and checks it against the budgets.
+     *
+     * @return the number of statements issued in the scope
+     */
+    int closeScope(String name);
+
+    void statementExecuted(String sql, long elapsedNanos);
+
+    List<QueryStatistics> readSlowest(int top);
+
+    List<QueryBudgetViolation> readViolations();
+
+    void reset();
+}
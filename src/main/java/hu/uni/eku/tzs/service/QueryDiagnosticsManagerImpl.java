@@ -0,0 +1,280 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.QueryBudgetViolation;
+import hu.uni.eku.tzs.model.QueryStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Counts the SQL statements of the HTTP requests and manager calls in scopes kept per thread, and aggregates
+ * every statement by its fingerprint: the SQL with its literals, IN lists and multi-row VALUES collapsed,
+ * so the executions of a statement with different parameters add up.
+ * A scope over the statement or the latency budget is logged with its most frequent fingerprints and kept
+ * among the recent violations; a statement slower than the slow statement threshold is logged on its own.
+ * The given share of the statements is logged by the {@code hu.uni.eku.tzs.sql} logger, sampled at random.
+ */
+@Slf4j
+@Service
+public class QueryDiagnosticsManagerImpl implements QueryDiagnosticsManager {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final String PLACEHOLDER_LIST = "\\( ?\\?(?: ?, ?\\?)* ?\\)";
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin ?" + PLACEHOLDER_LIST);
+
+    private static final Pattern VALUES_ROWS = Pattern.compile(
+            "(" + PLACEHOLDER_LIST + ")(?: ?, ?" + PLACEHOLDER_LIST + ")+");
+
+    private static final String PLACEHOLDER = "?";
+
+    private static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final int TOP_STATEMENTS = 3;
+
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("hu.uni.eku.tzs.sql");
+
+    private final int statementBudget;
+
+    private final long latencyBudgetNanos;
+
+    private final long slowStatementNanos;
+
+    private final int maxFingerprints;
+
+    private final int maxViolations;
+
+    private final double sqlLogSampleRate;
+
+    private final ThreadLocal<Deque<Scope>> scopes = new ThreadLocal<>();
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    private final Deque<QueryBudgetViolation> violations = new ArrayDeque<>();
+
+    public QueryDiagnosticsManagerImpl(@Value("${diagnostics.statement-budget:25}") int statementBudget,
+                                       @Value("${diagnostics.latency-budget:1s}") Duration latencyBudget,
+                                       @Value("${diagnostics.slow-statement:100ms}") Duration slowStatement,
+                                       @Value("${diagnostics.max-fingerprints:1000}") int maxFingerprints,
+                                       @Value("${diagnostics.max-violations:100}") int maxViolations,
+                                       @Value("${diagnostics.sql-log-sample-rate:0}") double sqlLogSampleRate) {
+        this.statementBudget = statementBudget;
+        this.latencyBudgetNanos = latencyBudget.toNanos();
+        this.slowStatementNanos = slowStatement.toNanos();
+        this.maxFingerprints = maxFingerprints;
+        this.maxViolations = maxViolations;
+        this.sqlLogSampleRate = sqlLogSampleRate;
+    }
+
+    /**
+     * Replaces the literals with placeholders and collapses IN lists and the rows of multi-row inserts,
+     * so the statements differing only in their parameters share a fingerprint.
+     */
+    static String fingerprint(String sql) {
+        String fingerprint = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll(PLACEHOLDER);
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll(PLACEHOLDER);
+        fingerprint = IN_LIST.matcher(fingerprint).replaceAll("in (?)");
+        return VALUES_ROWS.matcher(fingerprint).replaceAll("$1");
+    }
+
+    private static String idOf(String fingerprint) {
+        return String.format("%08x", fingerprint.hashCode());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public void openScope() {
+        Deque<Scope> threadScopes = scopes.get();
+        if (threadScopes == null) {
+            threadScopes = new ArrayDeque<>();
+            scopes.set(threadScopes);
+        }
+        threadScopes.push(new Scope(System.nanoTime()));
+    }
+
+    @Override
+    public int closeScope(String name) {
+        Deque<Scope> threadScopes = scopes.get();
+        if (threadScopes == null || threadScopes.isEmpty()) {
+            return 0;
+        }
+        Scope scope = threadScopes.pop();
+        if (threadScopes.isEmpty()) {
+            scopes.remove();
+        }
+        long elapsedNanos = System.nanoTime() - scope.startedAt;
+        if (scope.statements > statementBudget || elapsedNanos > latencyBudgetNanos) {
+            QueryBudgetViolation violation = new QueryBudgetViolation(name, scope.statements, toMillis(elapsedNanos),
+                    LocalDateTime.now(), scope.topStatements());
+            log.warn("{} issued {} statements in {} ms, over the budget of {} statements or {} ms: {}",
+                    name, scope.statements, Math.round(violation.getElapsedMillis()), statementBudget,
+                    Math.round(toMillis(latencyBudgetNanos)), violation.getTopStatements());
+            synchronized (violations) {
+                violations.addFirst(violation);
+                if (violations.size() > maxViolations) {
+                    violations.removeLast();
+                }
+            }
+        }
+        return scope.statements;
+    }
+
+    @Override
+    public void statementExecuted(String sql, long elapsedNanos) {
+        String fingerprint = fingerprintOf(sql);
+        Deque<Scope> threadScopes = scopes.get();
+        if (threadScopes != null) {
+            threadScopes.forEach(scope -> scope.add(fingerprint));
+        }
+        Aggregate aggregate = aggregates.get(fingerprint);
+        if (aggregate == null) {
+            aggregate = aggregates.size() < maxFingerprints
+                    ? aggregates.computeIfAbsent(fingerprint, Aggregate::new)
+                    : aggregates.computeIfAbsent(OTHER_STATEMENTS, Aggregate::new);
+        }
+        boolean slow = elapsedNanos >= slowStatementNanos;
+        aggregate.add(elapsedNanos, slow);
+        if (slow) {
+            log.warn("Slow statement ran for {} ms [{}] {}", Math.round(toMillis(elapsedNanos)), aggregate.id,
+                    fingerprint);
+        } else if (sqlLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sqlLogSampleRate) {
+            SQL_LOG.info("{} {} {}", kv("fingerprintId", aggregate.id), kv("elapsedMillis", toMillis(elapsedNanos)),
+                    kv("sql", sql));
+        }
+    }
+
+    /**
+     * The fingerprints of the distinct SQL strings are cached, most statements are prepared with placeholders
+     * and the application issues only a few hundred different ones.
+     */
+    private String fingerprintOf(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = fingerprint(sql);
+            if (fingerprints.size() < maxFingerprints) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public List<QueryStatistics> readSlowest(int top) {
+        return aggregates.values()
+                .stream()
+                .map(Aggregate::toStatistics)
+                .sorted(Comparator.comparingDouble(QueryStatistics::getTotalMillis).reversed())
+                .limit(top > 0 ? top : Long.MAX_VALUE)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<QueryBudgetViolation> readViolations() {
+        synchronized (violations) {
+            return new ArrayList<>(violations);
+        }
+    }
+
+    @Override
+    public void reset() {
+        aggregates.clear();
+        synchronized (violations) {
+            violations.clear();
+        }
+    }
+
+    private static class Scope {
+
+        private final long startedAt;
+
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        private int statements;
+
+        Scope(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        void add(String fingerprint) {
+            statements++;
+            counts.merge(fingerprint, 1, Integer::sum);
+        }
+
+        List<String> topStatements() {
+            return counts.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(TOP_STATEMENTS)
+                    .map(entry -> String.format("%d x [%s] %s", entry.getValue(), idOf(entry.getKey()),
+                            entry.getKey()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static class Aggregate {
+
+        private final String fingerprint;
+
+        private final String id;
+
+        private final LongAdder executions = new LongAdder();
+
+        private final LongAdder slowExecutions = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Aggregate(String fingerprint) {
+            this.fingerprint = fingerprint;
+            this.id = idOf(fingerprint);
+        }
+
+        void add(long elapsedNanos, boolean slow) {
+            executions.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            if (slow) {
+                slowExecutions.increment();
+            }
+        }
+
+        QueryStatistics toStatistics() {
+            long count = executions.sum();
+            long total = totalNanos.sum();
+            return new QueryStatistics(id, fingerprint, count, slowExecutions.sum(), toMillis(total),
+                    count == 0 ? 0 : toMillis(total) / count, toMillis(maxNanos.get()));
+        }
+    }
+}
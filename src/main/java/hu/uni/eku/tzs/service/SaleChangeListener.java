@@ -0,0 +1,21 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.SaleChange;
+
+import java.io.IOException;
+
+/**
+ * Receives the sale changes of a subscription on the subscription's own thread.
+ */
+public interface SaleChangeListener {
+
+    /**
+     * Delivers a change. Throwing ends the subscription.
+     */
+    void onChange(SaleChange change) throws IOException;
+
+    /**
+     * Called once when the subscription ends for a reason other than {@link SaleSubscription#close()}.
+     */
+    void onDropped(String reason);
+}
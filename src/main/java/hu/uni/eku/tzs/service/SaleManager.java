@@ -1,19 +1,72 @@
 package hu.uni.eku.tzs.service;
 
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.exceptions.IdempotencyKeyConflictException;
 import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Manages the sales. Every write publishes a {@link SalesChangedEvent}.
+ */
 public interface SaleManager {
     Sale record(Sale sale) throws SaleAlreadyExistsException;
 
+    /**
+     * Records the sale once per idempotency key. Repeating the call with the same key returns the originally
+     * recorded sale instead of recording it again.
+     *
+     * @throws IdempotencyKeyConflictException when the key is being used concurrently, or its sale has been deleted
+     */
+    Sale record(Sale sale, String idempotencyKey) throws SaleAlreadyExistsException, IdempotencyKeyConflictException;
+
+    /**
+     * Records the sales in a single transaction and reports the outcome of each of them in input order.
+     * A sale with an ID keeps it. A sale whose ID is already recorded, or given to an earlier sale of the batch,
+     * is reported as already existing.
+     */
+    List<SaleRecordResult> recordAll(List<Sale> sales);
+
     Sale readById(int id) throws SaleNotFoundException;
 
-    Collection<Sale> readAll();
+    Collection<Sale> readAll(int after, int limit);
+
+    /**
+     * Reads at most {@code limit} sales of the customer following the sale with the ID {@code after}, in ID order.
+     */
+    Collection<Sale> readAllOfCustomer(int customerId, int after, int limit);
+
+    /**
+     * Reads at most {@code limit} sales sold in {@code [from, to)}, in order of sale time and ID.
+     * The next page starts at the sale time and ID of the last sale of the previous one.
+     */
+    Collection<Sale> readAllSoldBetween(LocalDateTime from, LocalDateTime to, int after, int limit);
+
+    /**
+     * Passes every sale to the consumer one by one without holding them in memory.
+     */
+    void exportAll(Consumer<Sale> consumer);
+
+    /**
+     * Reads the quantity and revenue totals of the sales grouped by the given dimension from the rollups,
+     * in descending order of revenue.
+     *
+     * @param top the number of groups to return, every group is returned when it is not positive
+     */
+    List<SalesTotal> readTotals(SalesDimension dimension, int top);
+
+    void rebuildTotals();
 
     Sale modify(Sale sale);
 
     void delete(Sale sale);
+
+    void deleteById(int id) throws SaleNotFoundException;
 }
@@ -1,199 +1,365 @@
 package hu.uni.eku.tzs.service;
 
-import hu.uni.eku.tzs.dao.CustomerRepository;
-import hu.uni.eku.tzs.dao.EmployeeRepository;
-import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.IdempotencyKeyRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
+import hu.uni.eku.tzs.dao.SaleBatchRepository;
 import hu.uni.eku.tzs.dao.SaleRepository;
-import hu.uni.eku.tzs.dao.entity.CustomerEntity;
-import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
-import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.dao.SaleWithIdempotencyKeyView;
+import hu.uni.eku.tzs.dao.entity.IdempotencyKeyEntity;
 import hu.uni.eku.tzs.dao.entity.SaleEntity;
-import hu.uni.eku.tzs.model.Customer;
-import hu.uni.eku.tzs.model.Employee;
-import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.KeyedTable;
+import hu.uni.eku.tzs.model.RecordStatus;
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.exceptions.IdempotencyKeyConflictException;
 import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class SaleManagerImpl implements SaleManager {
 
+    static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private static final String NOT_FOUND = "Cannot find sale with ID %d";
+
     private final SaleRepository saleRepository;
 
-    private final EmployeeRepository employeeRepository;
+    private final SaleBatchRepository saleBatchRepository;
+
+    private final SaleReferenceResolver saleReferenceResolver;
+
+    private final SalesRollupManager salesRollupManager;
+
+    private final EntityManager entityManager;
 
-    private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    private final ProductRepository productRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
 
-    private static SaleEntity convertSaleModel2Entity(Sale sale) {
+    private final CacheManager cacheManager;
+
+    private final KeyedInsertRepository keyedInsertRepository;
+
+    private final ExistenceFilterManager existenceFilterManager;
+
+    /**
+     * Package-private, like {@link #convertSaleEntity2Model(SaleEntity)}, for the conversion benchmarks.
+     */
+    static SaleEntity convertSaleModel2Entity(Sale sale) {
         return SaleEntity.builder()
                 .id(sale.getId())
-                .salesPerson(convertEmployeeModel2Entity(sale.getSalesPerson()))
-                .customer(convertCustomerModel2Entity(sale.getCustomer()))
-                .product(convertProductModel2Entity(sale.getProduct()))
+                .salesPerson(SaleReferenceConverter.convertEmployeeModel2Entity(sale.getSalesPerson()))
+                .customer(SaleReferenceConverter.convertCustomerModel2Entity(sale.getCustomer()))
+                .product(SaleReferenceConverter.convertProductModel2Entity(sale.getProduct()))
                 .quantity(sale.getQuantity())
+                .soldAt(sale.getSoldAt())
                 .build();
     }
 
-    private static Sale convertSaleEntity2Model(SaleEntity saleEntity) {
+    static Sale convertSaleEntity2Model(SaleEntity saleEntity) {
         return new Sale(
                 saleEntity.getId(),
-                convertEmployeeEntity2Model(saleEntity.getSalesPerson()),
-                convertCustomerEntity2Model(saleEntity.getCustomer()),
-                convertProductEntity2Model(saleEntity.getProduct()),
-                saleEntity.getQuantity()
+                SaleReferenceConverter.convertEmployeeEntity2Model(saleEntity.getSalesPerson()),
+                SaleReferenceConverter.convertCustomerEntity2Model(saleEntity.getCustomer()),
+                SaleReferenceConverter.convertProductEntity2Model(saleEntity.getProduct()),
+                saleEntity.getQuantity(),
+                saleEntity.getSoldAt()
         );
     }
 
-    private static Employee convertEmployeeEntity2Model(EmployeeEntity employeeEntity) {
-        return new Employee(
-                employeeEntity.getId(),
-                employeeEntity.getFirstName(),
-                employeeEntity.getMiddleInitial(),
-                employeeEntity.getLastName()
-        );
+    /**
+     * Sales recorded without a sale time are sold now.
+     */
+    private static LocalDateTime soldAtOf(Sale sale) {
+        return sale.getSoldAt() != null ? sale.getSoldAt() : LocalDateTime.now();
     }
 
-    private static EmployeeEntity convertEmployeeModel2Entity(Employee employee) {
-        return EmployeeEntity.builder()
-                .id(employee.getId())
-                .firstName(employee.getFirstName())
-                .middleInitial(employee.getMiddleInitial())
-                .lastName(employee.getLastName())
-                .build();
-    }
+    @Override
+    @Transactional(rollbackFor = SaleAlreadyExistsException.class)
+    public Sale record(Sale sale) throws SaleAlreadyExistsException {
+        if (sale.getId() != 0 && existenceFilterManager.mightExist(KeyedTable.SALES, sale.getId())
+                && saleRepository.existsById(sale.getId())) {
+            throw new SaleAlreadyExistsException();
+        }
 
-    private static Customer convertCustomerEntity2Model(CustomerEntity customerEntity) {
-        return new Customer(
-                customerEntity.getId(),
-                customerEntity.getFirstName(),
-                customerEntity.getMiddleInitial(),
-                customerEntity.getLastName()
-        );
-    }
+        SaleReferenceResolver.References references = saleReferenceResolver.resolve(List.of(sale));
 
-    private static CustomerEntity convertCustomerModel2Entity(Customer customer) {
-        return CustomerEntity.builder()
-                .id(customer.getId())
-                .firstName(customer.getFirstName())
-                .middleInitial(customer.getMiddleInitial())
-                .lastName(customer.getLastName())
+        SaleEntity saleEntity = SaleEntity.builder()
+                .id(sale.getId())
+                .salesPerson(references.salesPersonOf(sale))
+                .customer(references.customerOf(sale))
+                .product(references.productOf(sale))
+                .quantity(sale.getQuantity())
+                .soldAt(soldAtOf(sale))
                 .build();
+        if (sale.getId() == 0) {
+            saleEntity = saleRepository.save(saleEntity);
+        } else {
+            try {
+                keyedInsertRepository.insertSale(saleEntity);
+            } catch (DuplicateKeyException e) {
+                throw new SaleAlreadyExistsException();
+            }
+        }
+        existenceFilterManager.added(KeyedTable.SALES, saleEntity.getId());
+        Sale recorded = convertSaleEntity2Model(saleEntity);
+        salesRollupManager.add(List.of(recorded));
+        eventPublisher.publishEvent(new SalesChangedEvent(List.of(), List.of(recorded)));
+        return recorded;
     }
 
-    private static Product convertProductEntity2Model(ProductEntity productEntity) {
-        return new Product(
-                productEntity.getId(),
-                productEntity.getName(),
-                productEntity.getPrice()
-        );
-    }
-
-    private static ProductEntity convertProductModel2Entity(Product product) {
-        return ProductEntity.builder()
-                .id(product.getId())
-                .name(product.getName())
-                .price(product.getPrice())
-                .build();
+    @Override
+    @Transactional(rollbackFor = {IdempotencyKeyConflictException.class, SaleAlreadyExistsException.class})
+    public Sale record(Sale sale, String idempotencyKey)
+            throws SaleAlreadyExistsException, IdempotencyKeyConflictException {
+        Cache idempotencyKeys = cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS);
+        Sale original = idempotencyKeys.get(idempotencyKey, Sale.class);
+        if (original != null) {
+            return original;
+        }
+        Optional<IdempotencyKeyEntity> known = idempotencyKeyRepository.findById(idempotencyKey);
+        if (known.isPresent()) {
+            original = saleRepository.findById(known.get().getSaleId())
+                    .map(SaleManagerImpl::convertSaleEntity2Model)
+                    .orElseThrow(() -> new IdempotencyKeyConflictException(
+                            String.format("Sale %d of idempotency key %s no longer exists",
+                                    known.get().getSaleId(), idempotencyKey)));
+            idempotencyKeys.put(idempotencyKey, original);
+            return original;
+        }
+        Sale recorded = record(sale);
+        try {
+            // a concurrent request with the same key fails here on the primary key and rolls back its sale
+            idempotencyKeyRepository.saveAndFlush(new IdempotencyKeyEntity(
+                    idempotencyKey, recorded.getId(), LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyKeyConflictException(
+                    String.format("Idempotency key %s is being used by another request", idempotencyKey));
+        }
+        // cached only once committed, a rolled back sale must not be answered from the cache
+        afterCommit(() -> idempotencyKeys.put(idempotencyKey, recorded));
+        return recorded;
     }
 
     @Override
-    public Sale record(Sale sale) throws SaleAlreadyExistsException {
-        if (saleRepository.findById(sale.getId()).isPresent()) {
-            throw new SaleAlreadyExistsException();
+    @Transactional
+    public List<SaleRecordResult> recordAll(List<Sale> sales) {
+        List<SaleRecordResult> results = new ArrayList<>(sales.size());
+        Set<Integer> givenIds = sales.stream().map(Sale::getId).filter(id -> id != 0).collect(Collectors.toSet());
+        // an empty IN list is not valid SQL, a batch of new sales has nothing to look up
+        Set<Integer> existingIds = givenIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(saleRepository.findExistingIds(givenIds));
+        Set<Integer> acceptedIds = new HashSet<>();
+        List<Sale> accepted = new ArrayList<>();
+        for (int index = 0; index < sales.size(); index++) {
+            Sale sale = sales.get(index);
+            if (sale.getSalesPerson() == null || sale.getCustomer() == null || sale.getProduct() == null) {
+                results.add(new SaleRecordResult(index, RecordStatus.REJECTED, sale,
+                        "sales person, customer and product are mandatory"));
+            } else if (existingIds.contains(sale.getId())
+                    || (sale.getId() != 0 && !acceptedIds.add(sale.getId()))) {
+                // already recorded, or given earlier in the batch
+                results.add(new SaleRecordResult(index, RecordStatus.ALREADY_EXISTS, sale,
+                        String.format("Sale with ID %d already exists", sale.getId())));
+            } else {
+                accepted.add(sale);
+                results.add(new SaleRecordResult(index, RecordStatus.RECORDED, null, null));
+            }
         }
-
-        EmployeeEntity employeeEntity = this.readOrRecordSalesPerson(sale.getSalesPerson());
-        CustomerEntity customerEntity = this.readOrRecordCustomer(sale.getCustomer());
-        ProductEntity productEntity = this.readOrRecordProduct(sale.getProduct());
-
-        SaleEntity saleEntity = saleRepository.save(
-                SaleEntity.builder()
+        SaleReferenceResolver.References references = saleReferenceResolver.resolve(accepted);
+        List<SaleEntity> saleEntities = accepted.stream()
+                .map(sale -> SaleEntity.builder()
                         .id(sale.getId())
-                        .salesPerson(employeeEntity)
-                        .customer(customerEntity)
-                        .product(productEntity)
+                        .salesPerson(references.salesPersonOf(sale))
+                        .customer(references.customerOf(sale))
+                        .product(references.productOf(sale))
                         .quantity(sale.getQuantity())
-                        .build()
-        );
-        return convertSaleEntity2Model(saleEntity);
+                        .soldAt(soldAtOf(sale))
+                        .build())
+                .collect(Collectors.toList());
+        // the keyed sales go first, MySQL moves the generated IDs past them
+        List<SaleEntity> keyed = saleEntities.stream()
+                .filter(entity -> entity.getId() != 0)
+                .collect(Collectors.toList());
+        if (!keyed.isEmpty()) {
+            keyedInsertRepository.insertSales(keyed);
+        }
+        saleBatchRepository.insertAll(saleEntities.stream()
+                .filter(entity -> entity.getId() == 0)
+                .collect(Collectors.toList()));
+        saleEntities.forEach(saleEntity -> existenceFilterManager.added(KeyedTable.SALES, saleEntity.getId()));
+        List<Sale> recorded = saleEntities.stream()
+                .map(SaleManagerImpl::convertSaleEntity2Model)
+                .collect(Collectors.toList());
+        salesRollupManager.add(recorded);
+        eventPublisher.publishEvent(new SalesChangedEvent(List.of(), recorded));
+        Iterator<Sale> recordedSales = recorded.iterator();
+        results.stream()
+                .filter(result -> result.getStatus() == RecordStatus.RECORDED)
+                .forEach(result -> result.setSale(recordedSales.next()));
+        return results;
     }
 
     @Override
     public Sale readById(int id) throws SaleNotFoundException {
         Optional<SaleEntity> entity = saleRepository.findById(id);
         if (entity.isEmpty()) {
-            throw new SaleNotFoundException(String.format("Cannot find sale with ID %d", id));
+            throw new SaleNotFoundException(String.format(NOT_FOUND, id));
         }
         return convertSaleEntity2Model(entity.get());
     }
 
     @Override
-    public Collection<Sale> readAll() {
-        return saleRepository.findAll(PageRequest.of(0, 100))
-                .getContent()
+    public Collection<Sale> readAll(int after, int limit) {
+        return saleRepository.findAllByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit))
+                .stream()
+                .map(SaleManagerImpl::convertSaleEntity2Model)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Sale> readAllOfCustomer(int customerId, int after, int limit) {
+        return saleRepository
+                .findAllByCustomerIdAndIdGreaterThanOrderByIdAsc(customerId, after, PageRequest.of(0, limit))
+                .stream()
+                .map(SaleManagerImpl::convertSaleEntity2Model)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<Sale> readAllSoldBetween(LocalDateTime from, LocalDateTime to, int after, int limit) {
+        return saleRepository.findAllSoldBetween(from, to, after, PageRequest.of(0, limit))
                 .stream()
                 .map(SaleManagerImpl::convertSaleEntity2Model)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Sale> consumer) {
+        AtomicInteger exported = new AtomicInteger();
+        try (Stream<SaleEntity> entities = saleRepository.streamAll()) {
+            entities.forEach(entity -> {
+                consumer.accept(convertSaleEntity2Model(entity));
+                // keeps the persistence context, and so the heap, from growing with the sales and their references
+                if (exported.incrementAndGet() % EXPORT_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    @Override
+    public List<SalesTotal> readTotals(SalesDimension dimension, int top) {
+        return salesRollupManager.readTotals(dimension, top);
+    }
+
+    @Override
+    public void rebuildTotals() {
+        salesRollupManager.rebuild();
+    }
+
+    @Override
+    @Transactional
     public Sale modify(Sale sale) {
+        Optional<Sale> previous = saleRepository.findById(sale.getId()).map(SaleManagerImpl::convertSaleEntity2Model);
         SaleEntity entity = convertSaleModel2Entity(sale);
-        return convertSaleEntity2Model(saleRepository.save(entity));
+        if (entity.getSoldAt() == null) {
+            previous.ifPresent(previousSale -> entity.setSoldAt(previousSale.getSoldAt()));
+        }
+        Sale modified = convertSaleEntity2Model(saleRepository.save(entity));
+        previous.ifPresent(previousSale -> salesRollupManager.subtract(List.of(previousSale)));
+        salesRollupManager.add(List.of(modified));
+        List<Sale> removed = previous.map(List::of).orElse(List.of());
+        eventPublisher.publishEvent(new SalesChangedEvent(removed, List.of(modified)));
+        return modified;
     }
 
     @Override
+    @Transactional
     public void delete(Sale sale) {
         saleRepository.delete(convertSaleModel2Entity(sale));
+        existenceFilterManager.removed(KeyedTable.SALES, sale.getId());
+        forgetIdempotencyKeys(idempotencyKeyRepository.findAllIdsBySaleId(sale.getId()));
+        salesRollupManager.subtract(List.of(sale));
+        eventPublisher.publishEvent(new SalesChangedEvent(List.of(sale), List.of()));
     }
 
-    private ProductEntity readOrRecordProduct(Product product) {
-        if (productRepository.findById(product.getId()).isPresent()) {
-            return productRepository.findById(product.getId()).get();
+    /**
+     * The sale is still read, as the rollups and the listeners of the change need what it was. Its references and
+     * idempotency keys are read by the same statement. The row itself is deleted by ID, without Hibernate reading
+     * it again.
+     */
+    @Override
+    @Transactional
+    public void deleteById(int id) throws SaleNotFoundException {
+        List<SaleWithIdempotencyKeyView> rows = saleRepository.findWithIdempotencyKeysById(id);
+        // deleted concurrently if the row is read but no longer deleted
+        if (rows.isEmpty() || saleRepository.deleteIfPresent(id) == 0) {
+            throw new SaleNotFoundException(String.format(NOT_FOUND, id));
         }
-        return productRepository.save(
-                ProductEntity.builder()
-                        .id(product.getId())
-                        .name(product.getName())
-                        .price(product.getPrice())
-                        .build()
-        );
+        Sale sale = convertSaleEntity2Model(rows.get(0).getSale());
+        existenceFilterManager.removed(KeyedTable.SALES, id);
+        forgetIdempotencyKeys(rows.stream()
+                .map(SaleWithIdempotencyKeyView::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        salesRollupManager.subtract(List.of(sale));
+        eventPublisher.publishEvent(new SalesChangedEvent(List.of(sale), List.of()));
     }
 
-    private EmployeeEntity readOrRecordSalesPerson(Employee employee) {
-        if (employeeRepository.findById(employee.getId()).isPresent()) {
-            return employeeRepository.findById(employee.getId()).get();
-        }
-        return employeeRepository.save(
-                EmployeeEntity.builder()
-                        .id(employee.getId())
-                        .firstName(employee.getFirstName())
-                        .middleInitial(employee.getMiddleInitial())
-                        .lastName(employee.getLastName())
-                        .build()
-        );
+    /**
+     * The keys stay in the database, so a retry after the delete is answered with a conflict, but the cache
+     * would still answer with the deleted sale.
+     */
+    private void forgetIdempotencyKeys(List<String> keys) {
+        Cache idempotencyKeys = cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS);
+        // evicted after the commit, a retry before it may still cache the sale
+        afterCommit(() -> keys.forEach(idempotencyKeys::evict));
     }
 
-    private CustomerEntity readOrRecordCustomer(Customer customer) {
-        if (customerRepository.findById(customer.getId()).isPresent()) {
-            return customerRepository.findById(customer.getId()).get();
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        return CustomerEntity.builder()
-                .id(customer.getId())
-                .firstName(customer.getFirstName())
-                .middleInitial(customer.getMiddleInitial())
-                .lastName(customer.getLastName())
-                .build();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
 }
@@ -0,0 +1,69 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+
+/**
+ * Converts the employees, customers and products referenced by sales between their models and entities.
+ */
+final class SaleReferenceConverter {
+
+    private SaleReferenceConverter() {
+    }
+
+    static EmployeeEntity convertEmployeeModel2Entity(Employee employee) {
+        return EmployeeEntity.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .middleInitial(employee.getMiddleInitial())
+                .lastName(employee.getLastName())
+                .build();
+    }
+
+    static Employee convertEmployeeEntity2Model(EmployeeEntity employeeEntity) {
+        return new Employee(
+                employeeEntity.getId(),
+                employeeEntity.getFirstName(),
+                employeeEntity.getMiddleInitial(),
+                employeeEntity.getLastName()
+        );
+    }
+
+    static CustomerEntity convertCustomerModel2Entity(Customer customer) {
+        return CustomerEntity.builder()
+                .id(customer.getId())
+                .firstName(customer.getFirstName())
+                .middleInitial(customer.getMiddleInitial())
+                .lastName(customer.getLastName())
+                .build();
+    }
+
+    static Customer convertCustomerEntity2Model(CustomerEntity customerEntity) {
+        return new Customer(
+                customerEntity.getId(),
+                customerEntity.getFirstName(),
+                customerEntity.getMiddleInitial(),
+                customerEntity.getLastName()
+        );
+    }
+
+    static ProductEntity convertProductModel2Entity(Product product) {
+        return ProductEntity.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .build();
+    }
+
+    static Product convertProductEntity2Model(ProductEntity productEntity) {
+        return new Product(
+                productEntity.getId(),
+                productEntity.getName(),
+                productEntity.getPrice()
+        );
+    }
+}
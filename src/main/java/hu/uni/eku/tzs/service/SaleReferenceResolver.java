@@ -0,0 +1,163 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.dao.ReferenceUpsertRepository;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the employees, customers and products referenced by a batch of sales.
+ * Every entity type costs one {@code WHERE id IN (...)} query, and the missing ones are created by a single upsert,
+ * so resolving n sales takes a constant number of round trips instead of several per sale.
+ * References found in the near-cache of the managers are not queried at all.
+ */
+@Component
+@RequiredArgsConstructor
+public class SaleReferenceResolver {
+
+    private final EmployeeRepository employeeRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ReferenceUpsertRepository referenceUpsertRepository;
+
+    private final CacheManager cacheManager;
+
+    public References resolve(Collection<Sale> sales) {
+        ReferenceType<Employee, EmployeeEntity> salesPersons = new ReferenceType<>(
+                Employee.class, Employee::getId, Employee::setId, SaleReferenceConverter::convertEmployeeModel2Entity,
+                SaleReferenceConverter::convertEmployeeEntity2Model, EmployeeEntity::getId,
+                employeeRepository::findAllById, employeeRepository::save, referenceUpsertRepository::upsertEmployees,
+                cacheManager.getCache(CacheConfig.EMPLOYEES));
+        ReferenceType<Customer, CustomerEntity> customers = new ReferenceType<>(
+                Customer.class, Customer::getId, Customer::setId, SaleReferenceConverter::convertCustomerModel2Entity,
+                SaleReferenceConverter::convertCustomerEntity2Model, CustomerEntity::getId,
+                customerRepository::findAllById, customerRepository::save, referenceUpsertRepository::upsertCustomers,
+                cacheManager.getCache(CacheConfig.CUSTOMERS));
+        ReferenceType<Product, ProductEntity> products = new ReferenceType<>(
+                Product.class, Product::getId, Product::setId, SaleReferenceConverter::convertProductModel2Entity,
+                SaleReferenceConverter::convertProductEntity2Model, ProductEntity::getId,
+                productRepository::findAllById, productRepository::save, referenceUpsertRepository::upsertProducts,
+                cacheManager.getCache(CacheConfig.PRODUCTS));
+        return new References(
+                salesPersons.resolve(sales.stream().map(Sale::getSalesPerson).collect(Collectors.toList())),
+                customers.resolve(sales.stream().map(Sale::getCustomer).collect(Collectors.toList())),
+                products.resolve(sales.stream().map(Sale::getProduct).collect(Collectors.toList()))
+        );
+    }
+
+    @RequiredArgsConstructor
+    public static class References {
+
+        private final Map<Integer, EmployeeEntity> salesPersons;
+
+        private final Map<Integer, CustomerEntity> customers;
+
+        private final Map<Integer, ProductEntity> products;
+
+        public EmployeeEntity salesPersonOf(Sale sale) {
+            return salesPersons.get(sale.getSalesPerson().getId());
+        }
+
+        public CustomerEntity customerOf(Sale sale) {
+            return customers.get(sale.getCustomer().getId());
+        }
+
+        public ProductEntity productOf(Sale sale) {
+            return products.get(sale.getProduct().getId());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class ReferenceType<M, E> {
+
+        private final Class<M> modelType;
+
+        private final ToIntFunction<M> modelId;
+
+        private final ObjIntConsumer<M> assignModelId;
+
+        private final Function<M, E> model2Entity;
+
+        private final Function<E, M> entity2Model;
+
+        private final ToIntFunction<E> entityId;
+
+        private final Function<Iterable<Integer>, List<E>> findAllById;
+
+        private final Function<E, E> save;
+
+        private final Consumer<List<E>> upsertAll;
+
+        private final Cache cache;
+
+        Map<Integer, E> resolve(List<M> models) {
+            Map<Integer, E> resolved = new HashMap<>();
+            Map<Integer, M> requested = new LinkedHashMap<>();
+            for (M model : models) {
+                if (model == null) {
+                    continue;
+                }
+                if (modelId.applyAsInt(model) == 0) {
+                    // a reference without ID is a new row, the database generates its key
+                    E saved = save.apply(model2Entity.apply(model));
+                    assignModelId.accept(model, entityId.applyAsInt(saved));
+                    resolved.put(entityId.applyAsInt(saved), saved);
+                } else {
+                    requested.putIfAbsent(modelId.applyAsInt(model), model);
+                }
+            }
+            requested.keySet().removeIf(id -> {
+                M cached = cache.get(id, modelType);
+                if (cached != null) {
+                    resolved.put(id, model2Entity.apply(cached));
+                }
+                return cached != null;
+            });
+            if (requested.isEmpty()) {
+                return resolved;
+            }
+            findAllById.apply(requested.keySet()).forEach(entity -> {
+                resolved.put(entityId.applyAsInt(entity), entity);
+                cache.put(entityId.applyAsInt(entity), entity2Model.apply(entity));
+            });
+            List<E> missing = new ArrayList<>();
+            requested.forEach((id, model) -> {
+                if (!resolved.containsKey(id)) {
+                    missing.add(model2Entity.apply(model));
+                }
+            });
+            if (!missing.isEmpty()) {
+                upsertAll.accept(missing);
+                missing.forEach(entity -> resolved.put(entityId.applyAsInt(entity), entity));
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.service.exceptions.TooManySubscribersException;
+
+/**
+ * Pushes every committed sale write to the subscribers.
+ */
+public interface SaleStreamManager {
+
+    SaleSubscription subscribe(SaleChangeListener listener) throws TooManySubscribersException;
+}
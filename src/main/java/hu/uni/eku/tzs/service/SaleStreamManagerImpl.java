@@ -0,0 +1,152 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleChange;
+import hu.uni.eku.tzs.model.SaleChangeType;
+import hu.uni.eku.tzs.service.exceptions.TooManySubscribersException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fans the committed sale writes out to the subscribers.
+ * Every subscriber has a bounded buffer drained by its own thread, and publishing only offers to the buffers,
+ * so writers never wait for a subscriber. A subscriber whose buffer is full is dropped.
+ * The changes of one write take a single buffer entry, so a batch of any size cannot overflow the buffer alone.
+ */
+@Slf4j
+@Service
+public class SaleStreamManagerImpl implements SaleStreamManager {
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private final ExecutorService deliveryThreads;
+
+    public SaleStreamManagerImpl(@Value("${sales.stream.buffer-size:1000}") int bufferSize,
+                                 @Value("${sales.stream.max-subscribers:100}") int maxSubscribers) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deliveryThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sale-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.drop("the server is shutting down"));
+        deliveryThreads.shutdownNow();
+    }
+
+    @Override
+    public synchronized SaleSubscription subscribe(SaleChangeListener listener) throws TooManySubscribersException {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManySubscribersException(
+                    String.format("At most %d subscribers can follow the sales", maxSubscribers));
+        }
+        Subscriber subscriber = new Subscriber(listener);
+        subscribers.add(subscriber);
+        deliveryThreads.execute(subscriber::deliver);
+        return subscriber;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        List<SaleChange> changes = changesOf(event);
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.buffer.offer(changes)) {
+                subscriber.drop(String.format("the subscriber fell more than %d writes behind", bufferSize));
+            }
+        }
+    }
+
+    private static List<SaleChange> changesOf(SalesChangedEvent event) {
+        Set<Integer> addedIds = event.getAdded().stream().map(Sale::getId).collect(Collectors.toSet());
+        Set<Integer> removedIds = event.getRemoved().stream().map(Sale::getId).collect(Collectors.toSet());
+        List<SaleChange> changes = new ArrayList<>();
+        event.getRemoved().stream()
+                .filter(sale -> !addedIds.contains(sale.getId()))
+                .forEach(sale -> changes.add(new SaleChange(SaleChangeType.DELETED, sale)));
+        event.getAdded().forEach(sale -> changes.add(new SaleChange(
+                removedIds.contains(sale.getId()) ? SaleChangeType.MODIFIED : SaleChangeType.RECORDED, sale)));
+        return changes;
+    }
+
+    private class Subscriber implements SaleSubscription {
+
+        private final SaleChangeListener listener;
+
+        private final BlockingQueue<List<SaleChange>> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private volatile Thread thread;
+
+        Subscriber(SaleChangeListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                Thread deliveryThread = thread;
+                if (deliveryThread != null) {
+                    deliveryThread.interrupt();
+                }
+            }
+        }
+
+        void drop(String reason) {
+            if (!closed.get()) {
+                log.info("Dropping sale stream subscriber: {}", reason);
+                close();
+                listener.onDropped(reason);
+            }
+        }
+
+        void deliver() {
+            thread = Thread.currentThread();
+            try {
+                while (!closed.get()) {
+                    try {
+                        for (SaleChange change : buffer.take()) {
+                            listener.onChange(change);
+                        }
+                    } catch (InterruptedException e) {
+                        // closed while waiting for a change, the loop condition ends the delivery
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                drop(String.format("the change cannot be delivered: %s", e.getMessage()));
+            } finally {
+                thread = null;
+                Thread.interrupted();
+            }
+        }
+    }
+}
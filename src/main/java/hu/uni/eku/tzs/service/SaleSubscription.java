@@ -0,0 +1,9 @@
+package hu.uni.eku.tzs.service;
+
+public interface SaleSubscription {
+
+    /**
+     * Stops the delivery of changes. Changes still buffered are discarded.
+     */
+    void close();
+}
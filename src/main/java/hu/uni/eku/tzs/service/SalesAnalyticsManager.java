@@ -0,0 +1,27 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.model.SalesTotal;
+
+import java.util.List;
+
+public interface SalesAnalyticsManager {
+
+    /**
+     * Sums the matching sales by the given dimension, ordered by revenue descending.
+     *
+     * @param top the number of totals to return, all of them if not positive
+     */
+    List<SalesTotal> readTotals(SalesDimension dimension, SalesFilter filter, int top);
+
+    /**
+     * Reloads the in-memory copy of the sales from the database.
+     */
+    void reload();
+
+    /**
+     * Tells whether the sales have been loaded at least once.
+     */
+    boolean isReady();
+}
@@ -0,0 +1,120 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.model.SalesTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves sales analytics from an in-memory, column-wise copy of the sales table.
+ * The copy is loaded when the application is ready and follows the committed writes of {@link SaleManager}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sales.analytics.enabled", havingValue = "true")
+public class SalesAnalyticsManagerImpl implements SalesAnalyticsManager {
+
+    private final SaleManager saleManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SalesColumns columns = new SalesColumns();
+
+    /**
+     * The changes committed while a reload streams the table, replayed on the reloaded columns.
+     */
+    private List<SalesChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @EventListener(SalesImportedEvent.class)
+    public void onSalesImported() {
+        reload();
+    }
+
+    /**
+     * The columns hold the price of every product as its sales were written, so a price change reloads them.
+     */
+    @TransactionalEventListener(value = ProductPricesChangedEvent.class, fallbackExecution = true)
+    public void onProductPricesChanged() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            columns.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SalesTotal> readTotals(SalesDimension dimension, SalesFilter filter, int top) {
+        lock.readLock().lock();
+        try {
+            return columns.sum(dimension, filter, top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void reload() {
+        log.info("Loading sales into the analytics columns");
+        SalesColumns loaded = new SalesColumns();
+        setPending(new ArrayList<>());
+        try {
+            saleManager.exportAll(loaded::upsert);
+        } catch (RuntimeException e) {
+            setPending(null);
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            // replaying is idempotent, the columns are keyed by SalesID
+            pending.forEach(loaded::apply);
+            pending = null;
+            columns = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} sales into the analytics columns", loaded.size());
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void setPending(List<SalesChangedEvent> events) {
+        lock.writeLock().lock();
+        try {
+            pending = events;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by {@link SaleManager} for every write, so in-memory views of the sales can follow the table.
+ * A modification removes the previous state of the sale and adds the new one.
+ */
+@Getter
+@AllArgsConstructor
+public class SalesChangedEvent {
+    private final List<Sale> removed;
+
+    private final List<Sale> added;
+}
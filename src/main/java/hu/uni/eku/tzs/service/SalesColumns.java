@@ -0,0 +1,222 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.model.SalesTotal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Column-wise copy of the sales, one primitive array per column with the rows ordered by SalesID.
+ * Prices are held in a dense array indexed by ProductID. Deleted rows are only flagged, they are dropped
+ * on the next reload. Not thread-safe, the owner guards it with a read-write lock.
+ */
+class SalesColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int SCAN_CHUNK = 1 << 16;
+
+    private int size;
+
+    private int live;
+
+    private int[] saleIds = new int[INITIAL_CAPACITY];
+
+    private int[] salesPersonIds = new int[INITIAL_CAPACITY];
+
+    private int[] customerIds = new int[INITIAL_CAPACITY];
+
+    private int[] productIds = new int[INITIAL_CAPACITY];
+
+    private int[] quantities = new int[INITIAL_CAPACITY];
+
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+
+    /**
+     * The highest ID plus one per dimension, the length of the dense arrays a scan sums into.
+     */
+    private final int[] keyCounts = new int[SalesDimension.values().length];
+
+    int size() {
+        return live;
+    }
+
+    void apply(SalesChangedEvent event) {
+        event.getRemoved().forEach(sale -> remove(sale.getId()));
+        event.getAdded().forEach(this::upsert);
+    }
+
+    void upsert(Sale sale) {
+        int row = Arrays.binarySearch(saleIds, 0, size, sale.getId());
+        if (row < 0) {
+            row = -row - 1;
+            insertRow(row, sale.getId());
+            live++;
+        } else if (removed[row]) {
+            removed[row] = false;
+            live++;
+        }
+        salesPersonIds[row] = sale.getSalesPerson().getId();
+        customerIds[row] = sale.getCustomer().getId();
+        productIds[row] = sale.getProduct().getId();
+        quantities[row] = sale.getQuantity();
+        for (SalesDimension dimension : SalesDimension.values()) {
+            keyCounts[dimension.ordinal()] = Math.max(keyCounts[dimension.ordinal()], keysOf(dimension)[row] + 1);
+        }
+        if (productIds[row] >= prices.length) {
+            prices = Arrays.copyOf(prices, Math.max(prices.length * 2, productIds[row] + 1));
+        }
+        prices[productIds[row]] = sale.getProduct().getPrice();
+    }
+
+    void remove(int saleId) {
+        int row = Arrays.binarySearch(saleIds, 0, size, saleId);
+        if (row >= 0 && !removed[row]) {
+            removed[row] = true;
+            live--;
+        }
+    }
+
+    /**
+     * Sums the quantity and revenue of the matching rows per key of the dimension.
+     * The rows are split into chunks scanned in parallel, each summing into its own dense arrays.
+     */
+    List<SalesTotal> sum(SalesDimension dimension, SalesFilter filter, int top) {
+        Sums sums = ForkJoinPool.commonPool()
+                .invoke(new SumTask(keysOf(dimension), keyCounts[dimension.ordinal()], filter, 0, size));
+        Comparator<SalesTotal> byRevenue = Comparator.comparingDouble(SalesTotal::getRevenue);
+        PriorityQueue<SalesTotal> selected = new PriorityQueue<>(byRevenue);
+        for (int key = 0; key < sums.matched.length; key++) {
+            if (sums.matched[key]) {
+                selected.add(new SalesTotal(key, sums.quantities[key], sums.revenues[key]));
+                if (top > 0 && selected.size() > top) {
+                    selected.poll();
+                }
+            }
+        }
+        List<SalesTotal> totals = new ArrayList<>(selected);
+        totals.sort(byRevenue.reversed());
+        return totals;
+    }
+
+    private int[] keysOf(SalesDimension dimension) {
+        switch (dimension) {
+          case PRODUCT:
+              return productIds;
+          case SALES_PERSON:
+              return salesPersonIds;
+          case CUSTOMER:
+              return customerIds;
+          default:
+              throw new IllegalArgumentException(String.format("Unknown dimension %s", dimension));
+        }
+    }
+
+    private void insertRow(int row, int saleId) {
+        if (size == saleIds.length) {
+            int capacity = size * 2;
+            saleIds = Arrays.copyOf(saleIds, capacity);
+            salesPersonIds = Arrays.copyOf(salesPersonIds, capacity);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+        }
+        // sales are appended in key order, so shifting only happens for out-of-order IDs
+        if (row < size) {
+            int moved = size - row;
+            System.arraycopy(saleIds, row, saleIds, row + 1, moved);
+            System.arraycopy(salesPersonIds, row, salesPersonIds, row + 1, moved);
+            System.arraycopy(customerIds, row, customerIds, row + 1, moved);
+            System.arraycopy(productIds, row, productIds, row + 1, moved);
+            System.arraycopy(quantities, row, quantities, row + 1, moved);
+            System.arraycopy(removed, row, removed, row + 1, moved);
+        }
+        saleIds[row] = saleId;
+        removed[row] = false;
+        size++;
+    }
+
+    private boolean matches(SalesFilter filter, int row) {
+        return !removed[row]
+                && (filter.getSalesPersonId() == 0 || filter.getSalesPersonId() == salesPersonIds[row])
+                && (filter.getCustomerId() == 0 || filter.getCustomerId() == customerIds[row])
+                && (filter.getProductId() == 0 || filter.getProductId() == productIds[row])
+                && quantities[row] >= filter.getMinQuantity();
+    }
+
+    private static final class Sums {
+        private final long[] quantities;
+
+        private final double[] revenues;
+
+        private final boolean[] matched;
+
+        private Sums(int keyCount) {
+            quantities = new long[keyCount];
+            revenues = new double[keyCount];
+            matched = new boolean[keyCount];
+        }
+
+        private Sums merge(Sums other) {
+            for (int key = 0; key < matched.length; key++) {
+                quantities[key] += other.quantities[key];
+                revenues[key] += other.revenues[key];
+                matched[key] |= other.matched[key];
+            }
+            return this;
+        }
+    }
+
+    private final class SumTask extends RecursiveTask<Sums> {
+
+        private final int[] keys;
+
+        private final int keyCount;
+
+        private final SalesFilter filter;
+
+        private final int from;
+
+        private final int to;
+
+        private SumTask(int[] keys, int keyCount, SalesFilter filter, int from, int to) {
+            this.keys = keys;
+            this.keyCount = keyCount;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Sums compute() {
+            if (to - from > SCAN_CHUNK) {
+                int middle = (from + to) >>> 1;
+                SumTask left = new SumTask(keys, keyCount, filter, from, middle);
+                left.fork();
+                Sums right = new SumTask(keys, keyCount, filter, middle, to).compute();
+                return left.join().merge(right);
+            }
+            Sums sums = new Sums(keyCount);
+            for (int row = from; row < to; row++) {
+                if (matches(filter, row)) {
+                    int key = keys[row];
+                    sums.quantities[key] += quantities[row];
+                    sums.revenues[key] += quantities[row] * prices[productIds[row]];
+                    sums.matched[key] = true;
+                }
+            }
+            return sums;
+        }
+    }
+}
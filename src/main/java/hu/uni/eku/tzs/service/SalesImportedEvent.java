@@ -0,0 +1,8 @@
+package hu.uni.eku.tzs.service;
+
+/**
+ * Published by {@link ImportManager} once an import into the sales table ends, completed or not.
+ * The import writes past {@link SaleManager}, so in-memory views of the sales reload from the table.
+ */
+public class SalesImportedEvent {
+}
@@ -0,0 +1,26 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the per-product, per-sales-person and per-customer totals of the sales up to date incrementally.
+ * The updates join the transaction of the sale write that caused them.
+ */
+public interface SalesRollupManager {
+
+    void add(Collection<Sale> sales);
+
+    void subtract(Collection<Sale> sales);
+
+    List<SalesTotal> readTotals(SalesDimension dimension, int top);
+
+    /**
+     * Recomputes every rollup from the sales table, e.g. to backfill them or after product prices changed.
+     */
+    void rebuild();
+}
@@ -0,0 +1,136 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.dao.SalesRollupBatchRepository;
+import hu.uni.eku.tzs.dao.SalesRollupRepository;
+import hu.uni.eku.tzs.dao.SalesTotalView;
+import hu.uni.eku.tzs.dao.entity.SalesRollupEntity;
+import hu.uni.eku.tzs.dao.entity.SalesRollupKey;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupManagerImpl implements SalesRollupManager {
+
+    private static final Comparator<SalesRollupKey> ROLLUP_ORDER = Comparator
+            .comparing(SalesRollupKey::getDimension)
+            .thenComparingInt(SalesRollupKey::getKeyId);
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    private final SalesRollupBatchRepository salesRollupBatchRepository;
+
+    private final SaleRepository saleRepository;
+
+    private static SalesTotal convertSalesRollupEntity2Model(SalesRollupEntity entity) {
+        return new SalesTotal(entity.getId().getKeyId(), entity.getQuantity(), entity.getRevenue());
+    }
+
+    private static SalesRollupEntity convertSalesTotalView2Entity(SalesDimension dimension, SalesTotalView total) {
+        return SalesRollupEntity.builder()
+                .id(new SalesRollupKey(dimension.name(), total.getId()))
+                .quantity(total.getQuantity())
+                .revenue(total.getRevenue())
+                .build();
+    }
+
+    private static int keyOf(Sale sale, SalesDimension dimension) {
+        switch (dimension) {
+          case PRODUCT:
+              return sale.getProduct().getId();
+          case SALES_PERSON:
+              return sale.getSalesPerson().getId();
+          case CUSTOMER:
+              return sale.getCustomer().getId();
+          default:
+              throw new IllegalArgumentException(String.format("Unknown dimension %s", dimension));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void add(Collection<Sale> sales) {
+        salesRollupBatchRepository.addAll(deltasOf(sales, 1));
+    }
+
+    @Override
+    @Transactional
+    public void subtract(Collection<Sale> sales) {
+        salesRollupBatchRepository.addAll(deltasOf(sales, -1));
+    }
+
+    @Override
+    public List<SalesTotal> readTotals(SalesDimension dimension, int top) {
+        Pageable pageable = top > 0 ? PageRequest.of(0, top) : Pageable.unpaged();
+        return salesRollupRepository.findAllByIdDimensionOrderByRevenueDesc(dimension.name(), pageable)
+                .stream()
+                .map(SalesRollupManagerImpl::convertSalesRollupEntity2Model)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${sales.rollup.rebuild-cron:-}")
+    public void rebuild() {
+        log.info("Rebuilding sales rollups");
+        salesRollupRepository.deleteAllInBatch();
+        List<SalesRollupEntity> rollups = new ArrayList<>();
+        saleRepository.sumByProduct(Pageable.unpaged())
+                .forEach(total -> rollups.add(convertSalesTotalView2Entity(SalesDimension.PRODUCT, total)));
+        saleRepository.sumBySalesPerson(Pageable.unpaged())
+                .forEach(total -> rollups.add(convertSalesTotalView2Entity(SalesDimension.SALES_PERSON, total)));
+        saleRepository.sumByCustomer(Pageable.unpaged())
+                .forEach(total -> rollups.add(convertSalesTotalView2Entity(SalesDimension.CUSTOMER, total)));
+        salesRollupBatchRepository.addAll(rollups);
+        log.info("Rebuilt {} sales rollups", rollups.size());
+    }
+
+    /**
+     * Runs in the transaction of a product modification, if there is one, so the prices and rollups commit together.
+     */
+    @EventListener(ProductPricesChangedEvent.class)
+    @Transactional
+    public void onProductPricesChanged() {
+        rebuild();
+    }
+
+    /**
+     * Sums the quantity and revenue of the sales per rollup, so a batch of sales updates every rollup only once.
+     * The deltas are ordered by their key, so concurrent batches lock the rollup rows in the same order and
+     * cannot deadlock each other.
+     */
+    private static List<SalesRollupEntity> deltasOf(Collection<Sale> sales, int sign) {
+        Map<SalesRollupKey, SalesRollupEntity> deltas = new TreeMap<>(ROLLUP_ORDER);
+        for (Sale sale : sales) {
+            long quantity = (long) sign * sale.getQuantity();
+            double revenue = quantity * sale.getProduct().getPrice();
+            for (SalesDimension dimension : SalesDimension.values()) {
+                SalesRollupEntity delta = deltas.computeIfAbsent(
+                        new SalesRollupKey(dimension.name(), keyOf(sale, dimension)),
+                        key -> new SalesRollupEntity(key, 0, 0));
+                delta.setQuantity(delta.getQuantity() + quantity);
+                delta.setRevenue(delta.getRevenue() + revenue);
+            }
+        }
+        return new ArrayList<>(deltas.values());
+    }
+}
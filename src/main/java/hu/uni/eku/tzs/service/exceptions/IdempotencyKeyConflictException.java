@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class IdempotencyKeyConflictException extends Exception {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
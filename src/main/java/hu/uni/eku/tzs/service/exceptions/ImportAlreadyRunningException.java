@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class ImportAlreadyRunningException extends Exception {
+    public ImportAlreadyRunningException(String message) {
+        super(message);
+    }
+}
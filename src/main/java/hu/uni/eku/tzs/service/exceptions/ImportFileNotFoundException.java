@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class ImportFileNotFoundException extends Exception {
+    public ImportFileNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class ImportNotFoundException extends Exception {
+    public ImportNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class SaleQueueFullException extends Exception {
+    public SaleQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package hu.uni.eku.tzs.service.exceptions;
+
+public class TooManySubscribersException extends Exception {
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+-- Optional monthly range partitioning of the Sales table by SoldAt (MySQL 8).
+--
+-- Time-range queries (GET /sales/sold) are then pruned to the partitions of their window, and old months are
+-- archived with DROP PARTITION instead of a long DELETE. The table is served by the idx_sales_sold_at index
+-- either way, partitioning only pays off once the table holds many months of sales.
+--
+-- MySQL constraints this script has to satisfy:
+--  * every unique key must contain the partitioning column, so the primary key becomes (SalesID, SoldAt);
+--    SalesID stays AUTO_INCREMENT and unique in practice, the application only ever looks sales up by SalesID
+--  * partitioned InnoDB tables can have no foreign keys, so the Sales foreign keys are dropped and the
+--    references are only checked by the application (SaleReferenceResolver)
+--  * SoldAt must be NOT NULL, sales recorded before the column existed are backfilled with 1970-01-01, so they
+--    stay distinguishable from real sales and land in the first partition
+--
+-- With spring.jpa.hibernate.ddl-auto=update Hibernate tries to add the foreign keys back on every startup and
+-- logs a warning when MySQL refuses. Run the application with ddl-auto=none (or validate) on a partitioned
+-- schema.
+
+SET @unknown_sold_at = TIMESTAMP('1970-01-01');
+UPDATE Sales SET SoldAt = @unknown_sold_at WHERE SoldAt IS NULL;
+
+-- the foreign key names depend on how the schema was created, so they are looked up
+SET @drop_foreign_keys = (
+    SELECT CONCAT('ALTER TABLE Sales ',
+                  GROUP_CONCAT(CONCAT('DROP FOREIGN KEY `', CONSTRAINT_NAME, '`') SEPARATOR ', '))
+    FROM information_schema.TABLE_CONSTRAINTS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Sales' AND CONSTRAINT_TYPE = 'FOREIGN KEY');
+SET @drop_foreign_keys = COALESCE(@drop_foreign_keys, 'DO 0');
+PREPARE drop_foreign_keys FROM @drop_foreign_keys;
+EXECUTE drop_foreign_keys;
+DEALLOCATE PREPARE drop_foreign_keys;
+
+ALTER TABLE Sales
+    MODIFY SoldAt DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (SalesID, SoldAt);
+
+-- One partition per month from the first real sale up to the current month, the first one also holds everything
+-- sold earlier and pmax catches the future. The months are derived from the data, so no row of the table lands in
+-- pmax unless it was sold after the current month.
+SET @first_month = (SELECT DATE_FORMAT(COALESCE(MIN(SoldAt), NOW()), '%Y-%m-01')
+                    FROM Sales WHERE SoldAt > @unknown_sold_at);
+SET @last_month = DATE_FORMAT(GREATEST(COALESCE((SELECT MAX(SoldAt) FROM Sales), NOW()), NOW()), '%Y-%m-01');
+SET SESSION group_concat_max_len = 1000000;
+SET @partition_sales = (
+    WITH RECURSIVE months (month_start) AS (
+        SELECT DATE(@first_month)
+        UNION ALL
+        SELECT month_start + INTERVAL 1 MONTH FROM months WHERE month_start < DATE(@last_month))
+    SELECT CONCAT('ALTER TABLE Sales PARTITION BY RANGE COLUMNS (SoldAt) (',
+                  GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(month_start, '%Y_%m'),
+                                      ' VALUES LESS THAN (''', month_start + INTERVAL 1 MONTH, ''')')
+                               ORDER BY month_start SEPARATOR ', '),
+                  ', PARTITION pmax VALUES LESS THAN (MAXVALUE))')
+    FROM months);
+PREPARE partition_sales FROM @partition_sales;
+EXECUTE partition_sales;
+DEALLOCATE PREPARE partition_sales;
+
+-- Before a month starts, split its partition off pmax. Nothing has been sold in that month yet, so unless sales are
+-- dated into the future pmax is empty and this moves no rows:
+--   ALTER TABLE Sales REORGANIZE PARTITION pmax INTO (
+--       PARTITION p2026_11 VALUES LESS THAN ('2026-12-01'),
+--       PARTITION pmax VALUES LESS THAN (MAXVALUE));
+--
+-- Archive a month once it is no longer needed. The rollups are not adjusted, rebuild them afterwards with
+-- POST /sales/totals/rebuild:
+--   ALTER TABLE Sales DROP PARTITION p2026_01;
@@ -0,0 +1,95 @@
+package hu.uni.eku.tzs.config;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.service.CustomerManagerImpl;
+import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LatencyMetricsAspectTest {
+
+    @Mock
+    ProceedingJoinPoint joinPoint;
+
+    @Mock
+    Signature signature;
+
+    MeterRegistry meterRegistry;
+
+    LatencyMetricsAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new LatencyMetricsAspect(meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    void timeManagerRecordsSuccessfulCall() throws Throwable {
+        // given
+        when(joinPoint.getTarget()).thenReturn(new CustomerManagerImpl(null, null, null));
+        when(signature.getName()).thenReturn("readAll");
+        when(joinPoint.proceed()).thenReturn("result");
+        // when
+        Object actual = aspect.timeManager(joinPoint);
+        // then
+        assertThat(actual).isEqualTo("result");
+        assertThat(TestDataProvider.getTimer(meterRegistry, "manager", "CustomerManagerImpl", "readAll", "none")
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void timeControllerRecordsTheException() throws Throwable {
+        // given
+        when(joinPoint.getTarget()).thenReturn(new Object());
+        when(signature.getName()).thenReturn("readById");
+        when(joinPoint.proceed()).thenThrow(new SaleNotFoundException("Sale with ID 1 does not exist"));
+        // when then
+        assertThatThrownBy(() -> aspect.timeController(joinPoint)).isInstanceOf(SaleNotFoundException.class);
+        assertThat(TestDataProvider.getTimer(meterRegistry, "controller", "Object", "readById",
+                "SaleNotFoundException").count()).isEqualTo(1);
+    }
+
+    @Test
+    void timeRepositoryNamesProxiesAfterTheRepositoryInterface() throws Throwable {
+        // given
+        Object repository = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {SaleRepository.class}, (proxy, method, args) -> null);
+        when(joinPoint.getTarget()).thenReturn(repository);
+        when(signature.getName()).thenReturn("findById");
+        // when
+        aspect.timeRepository(joinPoint);
+        // then
+        assertThat(TestDataProvider.getTimer(meterRegistry, "repository", "SaleRepository", "findById", "none")
+                .count()).isEqualTo(1);
+    }
+
+    private static class TestDataProvider {
+
+        public static Timer getTimer(MeterRegistry meterRegistry, String layer, String type, String method,
+                                     String exception) {
+            return meterRegistry.get(LatencyMetricsAspect.METRIC)
+                    .tag("layer", layer)
+                    .tag("class", type)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .timer();
+        }
+    }
+}
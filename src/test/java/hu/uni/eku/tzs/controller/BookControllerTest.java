@@ -97,9 +97,7 @@ class BookControllerTest {
     @Test
     void deleteFromQueryParamHappyPath() throws BookNotFoundException {
         // given
-        Book dune = TestDataProvider.getDune();
-        when(bookManager.readByIsbn(TestDataProvider.DUNE_ISBN)).thenReturn(dune);
-        doNothing().when(bookManager).delete(dune);
+        doNothing().when(bookManager).deleteByIsbn(TestDataProvider.DUNE_ISBN);
         // when
         controller.delete(TestDataProvider.DUNE_ISBN);
         // then is not necessary, mock are checked by default
@@ -109,10 +107,7 @@ class BookControllerTest {
     void deleteFromQueryParamWhenBookNotFound() throws BookNotFoundException {
         // given
         final String notFoundBookIsbn = TestDataProvider.DUNE_ISBN;
-        doThrow(new BookNotFoundException()).when(bookManager).readByIsbn(notFoundBookIsbn);
-//        These two lines mean the same.
-//        doThrow(new BookNotFoundException()).when(bookManager).readByIsbn(notFoundBookIsbn);
-//        when(bookManager.readByIsbn(notFoundBookIsbn)).thenThrow(new BookNotFoundException());
+        doThrow(new BookNotFoundException()).when(bookManager).deleteByIsbn(notFoundBookIsbn);
         // when then
         assertThatThrownBy(() -> controller.delete(notFoundBookIsbn))
             .isInstanceOf(ResponseStatusException.class);
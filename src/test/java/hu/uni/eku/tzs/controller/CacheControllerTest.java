@@ -0,0 +1,43 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.CacheStatisticsDto;
+import hu.uni.eku.tzs.controller.dto.CacheStatisticsMapper;
+import hu.uni.eku.tzs.model.CacheStatistics;
+import hu.uni.eku.tzs.service.CacheStatisticsManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheControllerTest {
+
+    @Mock
+    private CacheStatisticsManager cacheStatisticsManager;
+
+    @Mock
+    private CacheStatisticsMapper cacheStatisticsMapper;
+
+    @InjectMocks
+    private CacheController controller;
+
+    @Test
+    void readAllHappyPath() {
+        // given
+        CacheStatistics statistics = new CacheStatistics("products", 1, 1, 1, 0.5, 0);
+        CacheStatisticsDto statisticsDto = new CacheStatisticsDto("products", 1, 1, 1, 0.5, 0);
+        when(cacheStatisticsManager.readAll()).thenReturn(List.of(statistics));
+        when(cacheStatisticsMapper.cacheStatistics2cacheStatisticsDto(statistics)).thenReturn(statisticsDto);
+        // when
+        Collection<CacheStatisticsDto> actual = controller.readAllCaches();
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(statisticsDto));
+    }
+}
@@ -2,8 +2,13 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.CustomerDto;
 import hu.uni.eku.tzs.controller.dto.CustomerMapper;
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalePageDto;
 import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Sale;
 import hu.uni.eku.tzs.service.CustomerManager;
+import hu.uni.eku.tzs.service.SaleManager;
 import hu.uni.eku.tzs.service.exceptions.CustomerAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.CustomerNotFoundException;
 import org.assertj.core.api.Assertions;
@@ -33,6 +38,12 @@ class CustomerControllerTest {
     @Mock
     private CustomerMapper customerMapper;
 
+    @Mock
+    private SaleManager saleManager;
+
+    @Mock
+    private SaleMapper saleMapper;
+
     @InjectMocks
     private CustomerController controller;
 
@@ -48,6 +59,38 @@ class CustomerControllerTest {
         assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
     }
 
+    @Test
+    void readSalesOfCustomerWhenPageIsFull() throws CustomerNotFoundException {
+        // given
+        Sale sale = TestDataProvider.getJohnDoesSale();
+        SaleDto saleDto = TestDataProvider.getJohnDoesSaleDto();
+        when(customerManager.readById(TestDataProvider.johnDoeId)).thenReturn(TestDataProvider.getJohnDoe());
+        when(saleManager.readAllOfCustomer(TestDataProvider.johnDoeId, 0, 1)).thenReturn(List.of(sale));
+        when(saleMapper.sale2saleDto(sale)).thenReturn(saleDto);
+        // when
+        SalePageDto actual = controller.readSalesOfCustomer(TestDataProvider.johnDoeId, 0, 1);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(new SalePageDto(List.of(saleDto), saleDto.getId()));
+    }
+
+    @Test
+    void readSalesOfCustomerWhenCustomerNotFound() throws CustomerNotFoundException {
+        // given
+        final int notFoundCustomerId = TestDataProvider.unknownId;
+        when(customerManager.readById(notFoundCustomerId)).thenThrow(
+                new CustomerNotFoundException(String.format("Cannot find customer with ID %d", notFoundCustomerId)));
+        // when then
+        assertThatThrownBy(() -> controller.readSalesOfCustomer(notFoundCustomerId, 0, 100))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void readSalesOfCustomerWithInvalidLimit() {
+        // when then
+        assertThatThrownBy(() -> controller.readSalesOfCustomer(TestDataProvider.johnDoeId, 0, 0))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
     @Test
     void createCustomerHappyPath() throws CustomerAlreadyExistsException {
         // given
@@ -76,9 +119,7 @@ class CustomerControllerTest {
     @Test
     void deleteFromQueryParamHappyPath() throws CustomerNotFoundException {
         // given
-        Customer johnDoe = CustomerControllerTest.TestDataProvider.getJohnDoe();
-        when(customerManager.readById(TestDataProvider.johnDoeId)).thenReturn(johnDoe);
-        doNothing().when(customerManager).delete(johnDoe);
+        doNothing().when(customerManager).deleteById(TestDataProvider.johnDoeId);
         // when
         controller.delete(TestDataProvider.johnDoeId);
         // then is not necessary, mock are checked by default
@@ -89,7 +130,7 @@ class CustomerControllerTest {
         // given
         final int notFoundCustomerId = TestDataProvider.unknownId;
         doThrow(new CustomerNotFoundException(String.format("Cannot find employee with ID %d", notFoundCustomerId)))
-                .when(customerManager).readById(notFoundCustomerId);
+                .when(customerManager).deleteById(notFoundCustomerId);
         // when then
         assertThatThrownBy(() -> controller.delete(notFoundCustomerId))
                 .isInstanceOf(ResponseStatusException.class);
@@ -115,6 +156,18 @@ class CustomerControllerTest {
                     .build();
         }
 
+        public static Sale getJohnDoesSale() {
+            return new Sale(5, null, getJohnDoe(), null, 2, null);
+        }
+
+        public static SaleDto getJohnDoesSaleDto() {
+            return SaleDto.builder()
+                    .id(5)
+                    .customer(getJohnDoeDto())
+                    .quantity(2)
+                    .build();
+        }
+
         public static Customer getJaneDoe() {
             return new Customer(janeDoeId, "Jane", "x", "Doe");
         }
@@ -0,0 +1,78 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.QueryBudgetViolationDto;
+import hu.uni.eku.tzs.controller.dto.QueryDiagnosticsMapper;
+import hu.uni.eku.tzs.controller.dto.QueryStatisticsDto;
+import hu.uni.eku.tzs.model.QueryBudgetViolation;
+import hu.uni.eku.tzs.model.QueryStatistics;
+import hu.uni.eku.tzs.service.QueryDiagnosticsManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DiagnosticsControllerTest {
+
+    @Mock
+    private QueryDiagnosticsManager queryDiagnosticsManager;
+
+    @Mock
+    private QueryDiagnosticsMapper queryDiagnosticsMapper;
+
+    @InjectMocks
+    private DiagnosticsController controller;
+
+    @Test
+    void readSlowestQueriesHappyPath() {
+        // given
+        QueryStatistics statistics = new QueryStatistics("0000abcd", TestDataProvider.SQL, 2, 1, 150, 75, 120);
+        QueryStatisticsDto statisticsDto = new QueryStatisticsDto("0000abcd", TestDataProvider.SQL, 2, 1, 150, 75,
+                120);
+        when(queryDiagnosticsManager.readSlowest(5)).thenReturn(List.of(statistics));
+        when(queryDiagnosticsMapper.queryStatistics2queryStatisticsDto(statistics)).thenReturn(statisticsDto);
+        // when
+        Collection<QueryStatisticsDto> actual = controller.readSlowestQueries(5);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(statisticsDto));
+    }
+
+    @Test
+    void readViolationsHappyPath() {
+        // given
+        QueryBudgetViolation violation = new QueryBudgetViolation("GET /sales/", 40, 12, TestDataProvider.FINISHED_AT,
+                List.of("40 x [0000abcd] " + TestDataProvider.SQL));
+        QueryBudgetViolationDto violationDto = new QueryBudgetViolationDto("GET /sales/", 40, 12,
+                TestDataProvider.FINISHED_AT, List.of("40 x [0000abcd] " + TestDataProvider.SQL));
+        when(queryDiagnosticsManager.readViolations()).thenReturn(List.of(violation));
+        when(queryDiagnosticsMapper.queryBudgetViolation2queryBudgetViolationDto(violation)).thenReturn(violationDto);
+        // when
+        Collection<QueryBudgetViolationDto> actual = controller.readViolations();
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(violationDto));
+    }
+
+    @Test
+    void resetHappyPath() {
+        // when
+        controller.reset();
+        // then
+        verify(queryDiagnosticsManager).reset();
+    }
+
+    private static class TestDataProvider {
+
+        static final String SQL = "select * from Sales where SalesID=?";
+
+        static final LocalDateTime FINISHED_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+    }
+}
@@ -2,8 +2,13 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.EmployeeDto;
 import hu.uni.eku.tzs.controller.dto.EmployeeMapper;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
 import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
 import hu.uni.eku.tzs.service.EmployeeManager;
+import hu.uni.eku.tzs.service.EmployeePerformanceManager;
 import hu.uni.eku.tzs.service.exceptions.EmployeeAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.EmployeeNotFoundException;
 import org.assertj.core.api.Assertions;
@@ -31,6 +36,12 @@ class EmployeeControllerTest {
     @Mock
     private EmployeeMapper employeeMapper;
 
+    @Mock
+    private EmployeePerformanceManager employeePerformanceManager;
+
+    @Mock
+    private SaleMapper saleMapper;
+
     @InjectMocks
     private EmployeeController controller;
 
@@ -46,6 +57,44 @@ class EmployeeControllerTest {
         assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
     }
 
+    @Test
+    void readSalesTotalHappyPath() throws EmployeeNotFoundException {
+        // given
+        SalesTotal total = new SalesTotal(TestDataProvider.johnDoeId, 8, 792);
+        SalesTotalDto totalDto = new SalesTotalDto(TestDataProvider.johnDoeId, 8, 792);
+        when(employeeManager.readById(TestDataProvider.johnDoeId)).thenReturn(TestDataProvider.getJohnDoe());
+        when(employeePerformanceManager.readTotal(TestDataProvider.johnDoeId)).thenReturn(total);
+        when(saleMapper.salesTotal2salesTotalDto(total)).thenReturn(totalDto);
+        // when
+        SalesTotalDto actual = controller.readSalesTotal(TestDataProvider.johnDoeId);
+        // then
+        assertThat(actual).isEqualTo(totalDto);
+    }
+
+    @Test
+    void readSalesTotalWhenEmployeeNotFound() throws EmployeeNotFoundException {
+        // given
+        final int notFoundEmployeeId = TestDataProvider.unknownId;
+        when(employeeManager.readById(notFoundEmployeeId)).thenThrow(
+                new EmployeeNotFoundException(String.format("Cannot find employee with ID %d", notFoundEmployeeId)));
+        // when then
+        assertThatThrownBy(() -> controller.readSalesTotal(notFoundEmployeeId))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void readLeaderboardHappyPath() {
+        // given
+        SalesTotal total = new SalesTotal(TestDataProvider.janeDoeId, 8, 792);
+        SalesTotalDto totalDto = new SalesTotalDto(TestDataProvider.janeDoeId, 8, 792);
+        when(employeePerformanceManager.readTop(SalesMeasure.QUANTITY, 1)).thenReturn(List.of(total));
+        when(saleMapper.salesTotal2salesTotalDto(total)).thenReturn(totalDto);
+        // when
+        Collection<SalesTotalDto> actual = controller.readLeaderboard(SalesMeasure.QUANTITY, 1);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(totalDto));
+    }
+
     @Test
     void createEmployeeHappyPath() throws EmployeeAlreadyExistsException {
         // given
@@ -74,9 +123,7 @@ class EmployeeControllerTest {
     @Test
     void deleteFromQueryParamHappyPath() throws EmployeeNotFoundException {
         // given
-        Employee johnDoe = TestDataProvider.getJohnDoe();
-        when(employeeManager.readById(TestDataProvider.johnDoeId)).thenReturn(johnDoe);
-        doNothing().when(employeeManager).delete(johnDoe);
+        doNothing().when(employeeManager).deleteById(TestDataProvider.johnDoeId);
         // when
         controller.delete(TestDataProvider.johnDoeId);
         // then is not necessary, mock are checked by default
@@ -87,7 +134,7 @@ class EmployeeControllerTest {
         // given
         final int notFoundEmployeeId = TestDataProvider.unknownId;
         doThrow(new EmployeeNotFoundException(String.format("Cannot find employee with ID %d", notFoundEmployeeId)))
-                .when(employeeManager).readById(notFoundEmployeeId);
+                .when(employeeManager).deleteById(notFoundEmployeeId);
         // when then
         assertThatThrownBy(() -> controller.delete(notFoundEmployeeId))
                 .isInstanceOf(ResponseStatusException.class);
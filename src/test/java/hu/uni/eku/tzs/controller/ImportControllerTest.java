@@ -0,0 +1,117 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.ImportMapper;
+import hu.uni.eku.tzs.controller.dto.ImportProgressDto;
+import hu.uni.eku.tzs.model.ImportProgress;
+import hu.uni.eku.tzs.model.ImportStatus;
+import hu.uni.eku.tzs.model.ImportTable;
+import hu.uni.eku.tzs.service.ImportManager;
+import hu.uni.eku.tzs.service.exceptions.ImportAlreadyRunningException;
+import hu.uni.eku.tzs.service.exceptions.ImportFileNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.ImportNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportControllerTest {
+
+    @Mock
+    private ImportManager importManager;
+
+    @Mock
+    private ImportMapper importMapper;
+
+    @InjectMocks
+    private ImportController controller;
+
+    @Test
+    void startHappyPath() throws Exception {
+        // given
+        ImportProgress progress = TestDataProvider.getProgress();
+        ImportProgressDto progressDto = TestDataProvider.getProgressDto();
+        when(importManager.start(ImportTable.SALES, TestDataProvider.FILE, true)).thenReturn(progress);
+        when(importMapper.importProgress2importProgressDto(progress)).thenReturn(progressDto);
+        // when
+        ImportProgressDto actual = controller.start(ImportTable.SALES, TestDataProvider.FILE, true);
+        // then
+        assertThat(actual).isEqualTo(progressDto);
+    }
+
+    @Test
+    void startWithUnreadableFile() throws Exception {
+        // given
+        when(importManager.start(ImportTable.SALES, TestDataProvider.FILE, true))
+                .thenThrow(new ImportFileNotFoundException("Cannot read sales.csv.gz"));
+        // when then
+        assertThatThrownBy(() -> controller.start(ImportTable.SALES, TestDataProvider.FILE, true))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatus())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void startWhileRunning() throws Exception {
+        // given
+        when(importManager.start(ImportTable.SALES, TestDataProvider.FILE, true))
+                .thenThrow(new ImportAlreadyRunningException("An import into SALES is already running"));
+        // when then
+        assertThatThrownBy(() -> controller.start(ImportTable.SALES, TestDataProvider.FILE, true))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatus())
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void readProgressHappyPath() throws Exception {
+        // given
+        ImportProgress progress = TestDataProvider.getProgress();
+        ImportProgressDto progressDto = TestDataProvider.getProgressDto();
+        when(importManager.readProgress(ImportTable.SALES)).thenReturn(progress);
+        when(importMapper.importProgress2importProgressDto(progress)).thenReturn(progressDto);
+        // when
+        ImportProgressDto actual = controller.readProgress(ImportTable.SALES);
+        // then
+        assertThat(actual).isEqualTo(progressDto);
+    }
+
+    @Test
+    void readProgressOfTableNeverImported() throws Exception {
+        // given
+        when(importManager.readProgress(ImportTable.SALES))
+                .thenThrow(new ImportNotFoundException("No import into SALES has been started"));
+        // when then
+        assertThatThrownBy(() -> controller.readProgress(ImportTable.SALES))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    private static class TestDataProvider {
+
+        static final String FILE = "sales.csv.gz";
+
+        private static final LocalDateTime STARTED_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static ImportProgress getProgress() {
+            return new ImportProgress(ImportTable.SALES, FILE, ImportStatus.RUNNING, 0, 0, STARTED_AT, null, null);
+        }
+
+        public static ImportProgressDto getProgressDto() {
+            return ImportProgressDto.builder()
+                    .table("SALES")
+                    .file(FILE)
+                    .status("RUNNING")
+                    .startedAt(STARTED_AT)
+                    .build();
+        }
+    }
+}
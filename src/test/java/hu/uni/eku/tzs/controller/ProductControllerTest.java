@@ -2,7 +2,12 @@ package hu.uni.eku.tzs.controller;
 
 import hu.uni.eku.tzs.controller.dto.ProductDto;
 import hu.uni.eku.tzs.controller.dto.ProductMapper;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
 import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.ProductLeaderboardManager;
 import hu.uni.eku.tzs.service.ProductManager;
 import hu.uni.eku.tzs.service.exceptions.ProductAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.ProductNotFoundException;
@@ -33,6 +38,12 @@ class ProductControllerTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ProductLeaderboardManager productLeaderboardManager;
+
+    @Mock
+    private SaleMapper saleMapper;
+
     @InjectMocks
     private ProductController controller;
 
@@ -48,6 +59,19 @@ class ProductControllerTest {
         assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
     }
 
+    @Test
+    void readTopHappyPath() {
+        // given
+        SalesTotal total = new SalesTotal(1, 8, 792);
+        SalesTotalDto totalDto = new SalesTotalDto(1, 8, 792);
+        when(productLeaderboardManager.readTop(SalesMeasure.REVENUE, 20)).thenReturn(List.of(total));
+        when(saleMapper.salesTotal2salesTotalDto(total)).thenReturn(totalDto);
+        // when
+        Collection<SalesTotalDto> actual = controller.readTop(SalesMeasure.REVENUE, 20);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(totalDto));
+    }
+
     @Test
     void createProductHappyPath() throws ProductAlreadyExistsException {
         // given
@@ -76,9 +100,7 @@ class ProductControllerTest {
     @Test
     void deleteFromQueryParamHappyPath() throws ProductNotFoundException {
         // given
-        Product hoverboard = TestDataProvider.getHoverboard();
-        when(productManager.readById(TestDataProvider.hoverboardId)).thenReturn(hoverboard);
-        doNothing().when(productManager).delete(hoverboard);
+        doNothing().when(productManager).deleteById(TestDataProvider.hoverboardId);
         // when
         controller.delete(TestDataProvider.hoverboardId);
         // then is not necessary, mock are checked by default
@@ -89,7 +111,7 @@ class ProductControllerTest {
         // given
         final int notFoundProductId = TestDataProvider.unknownId;
         doThrow(new ProductNotFoundException(String.format("Cannot find product with ID %d", notFoundProductId)))
-                .when(productManager).readById(notFoundProductId);
+                .when(productManager).deleteById(notFoundProductId);
         // when then
         assertThatThrownBy(() -> controller.delete(notFoundProductId))
                 .isInstanceOf(ResponseStatusException.class);
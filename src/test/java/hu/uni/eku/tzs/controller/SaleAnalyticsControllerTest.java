@@ -0,0 +1,70 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SalesTotalDto;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.SalesAnalyticsManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaleAnalyticsControllerTest {
+
+    @Mock
+    private SalesAnalyticsManager salesAnalyticsManager;
+
+    @Mock
+    private SaleMapper saleMapper;
+
+    @InjectMocks
+    private SaleAnalyticsController controller;
+
+    @Test
+    void readTotalsHappyPath() {
+        // given
+        SalesTotal total = new SalesTotal(1, 8, 792);
+        SalesTotalDto totalDto = new SalesTotalDto(1, 8, 792);
+        when(salesAnalyticsManager.isReady()).thenReturn(true);
+        when(salesAnalyticsManager.readTotals(SalesDimension.CUSTOMER, new SalesFilter(1, 0, 2, 0), 5))
+                .thenReturn(List.of(total));
+        when(saleMapper.salesTotal2salesTotalDto(total)).thenReturn(totalDto);
+        // when
+        Collection<SalesTotalDto> actual = controller.readTotals(SalesDimension.CUSTOMER, 1, 0, 2, 0, 5);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(totalDto));
+    }
+
+    @Test
+    void readTotalsBeforeLoadIsUnavailable() {
+        // given
+        when(salesAnalyticsManager.isReady()).thenReturn(false);
+        // when then
+        assertThatThrownBy(() -> controller.readTotals(SalesDimension.PRODUCT, 0, 0, 0, 0, 0))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void reloadHappyPath() {
+        // when
+        controller.reload();
+        // then
+        verify(salesAnalyticsManager).reload();
+    }
+}
@@ -0,0 +1,66 @@
+package hu.uni.eku.tzs.controller;
+
+import hu.uni.eku.tzs.controller.dto.SaleDto;
+import hu.uni.eku.tzs.controller.dto.SaleMapper;
+import hu.uni.eku.tzs.controller.dto.SaleRecordResultDto;
+import hu.uni.eku.tzs.model.RecordStatus;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.service.AsyncSaleManager;
+import hu.uni.eku.tzs.service.exceptions.SaleQueueFullException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaleAsyncControllerTest {
+
+    @Mock
+    private AsyncSaleManager asyncSaleManager;
+
+    @Mock
+    private SaleMapper saleMapper;
+
+    @InjectMocks
+    private SaleAsyncController controller;
+
+    @Test
+    void createHappyPath() throws Exception {
+        // given
+        SaleDto saleDto = new SaleDto();
+        Sale sale = new Sale();
+        SaleRecordResult result = new SaleRecordResult(0, RecordStatus.RECORDED, sale, null);
+        SaleRecordResultDto resultDto = new SaleRecordResultDto(0, "RECORDED", saleDto, null);
+        when(saleMapper.saleDto2sale(saleDto)).thenReturn(sale);
+        when(asyncSaleManager.record(sale)).thenReturn(CompletableFuture.completedFuture(result));
+        when(saleMapper.saleRecordResult2saleRecordResultDto(result)).thenReturn(resultDto);
+        // when
+        CompletableFuture<SaleRecordResultDto> actual = controller.create(saleDto);
+        // then
+        assertThat(actual.get()).isEqualTo(resultDto);
+    }
+
+    @Test
+    void createWhenQueueIsFull() throws Exception {
+        // given
+        SaleDto saleDto = new SaleDto();
+        Sale sale = new Sale();
+        when(saleMapper.saleDto2sale(saleDto)).thenReturn(sale);
+        when(asyncSaleManager.record(sale)).thenThrow(new SaleQueueFullException("full"));
+        // when then
+        assertThatThrownBy(() -> controller.create(saleDto))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
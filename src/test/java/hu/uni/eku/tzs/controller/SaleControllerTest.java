@@ -1,22 +1,47 @@
 package hu.uni.eku.tzs.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni.eku.tzs.controller.dto.*;
 import hu.uni.eku.tzs.model.Customer;
 import hu.uni.eku.tzs.model.Employee;
 import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.RecordStatus;
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleChange;
+import hu.uni.eku.tzs.model.SaleChangeType;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.SaleChangeListener;
 import hu.uni.eku.tzs.service.SaleManager;
+import hu.uni.eku.tzs.service.SaleStreamManager;
+import hu.uni.eku.tzs.service.SaleSubscription;
+import hu.uni.eku.tzs.service.exceptions.IdempotencyKeyConflictException;
 import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.TooManySubscribersException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -32,21 +57,178 @@ class SaleControllerTest {
     @Mock
     private SaleMapper saleMapper;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private SaleStreamManager saleStreamManager;
+
     @InjectMocks
     private SaleController controller;
 
     @Test
     void readAllHappyPath() {
         // given
-        when(saleManager.readAll()).thenReturn(List.of(TestDataProvider.getSale1()));
+        when(saleManager.readAll(0, 100)).thenReturn(List.of(TestDataProvider.getSale1()));
         when(saleMapper.sale2saleDto(any())).thenReturn(TestDataProvider.getSale1Dto());
         Collection<SaleDto> expected = List.of(TestDataProvider.getSale1Dto());
         // when
-        Collection<SaleDto> actual = controller.readAllSales();
+        Collection<SaleDto> actual = controller.readAllSales(0, 100);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
     }
 
+    @Test
+    void readAllAfterTheLastSaleOfAPage() {
+        // given
+        when(saleManager.readAll(1, 100)).thenReturn(List.of(TestDataProvider.getSale2()));
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale2())).thenReturn(TestDataProvider.getSale2Dto());
+        // when
+        Collection<SaleDto> actual = controller.readAllSales(1, 100);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(TestDataProvider.getSale2Dto()));
+    }
+
+    @Test
+    void readAllWithInvalidLimit() {
+        // when then
+        assertThatThrownBy(() -> controller.readAllSales(0, 0))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void readPageWhenPageIsFull() {
+        // given
+        when(saleManager.readAll(0, 2)).thenReturn(List.of(TestDataProvider.getSale1(), TestDataProvider.getSale2()));
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale1())).thenReturn(TestDataProvider.getSale1Dto());
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale2())).thenReturn(TestDataProvider.getSale2Dto());
+        // when
+        SalePageDto actual = controller.readSalePage(0, 2);
+        // then
+        assertThat(actual.getSales()).usingRecursiveComparison()
+                .isEqualTo(List.of(TestDataProvider.getSale1Dto(), TestDataProvider.getSale2Dto()));
+        assertThat(actual.getNext()).isEqualTo(2);
+    }
+
+    @Test
+    void readPageWhenLastPage() {
+        // given
+        when(saleManager.readAll(1, 2)).thenReturn(List.of(TestDataProvider.getSale2()));
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale2())).thenReturn(TestDataProvider.getSale2Dto());
+        // when
+        SalePageDto actual = controller.readSalePage(1, 2);
+        // then
+        assertThat(actual.getNext()).isNull();
+    }
+
+    @Test
+    void readPageWithInvalidLimit() {
+        // when then
+        assertThatThrownBy(() -> controller.readSalePage(0, 0))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void readSoldBetweenHappyPath() {
+        // given
+        LocalDateTime from = TestDataProvider.SOLD_AT;
+        LocalDateTime to = from.plusDays(1);
+        when(saleManager.readAllSoldBetween(from, to, 0, 2)).thenReturn(List.of(TestDataProvider.getSale1()));
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale1())).thenReturn(TestDataProvider.getSale1Dto());
+        // when
+        SalePageDto actual = controller.readSoldBetween(from, to, 0, 2);
+        // then
+        assertThat(actual.getSales()).usingRecursiveComparison().isEqualTo(List.of(TestDataProvider.getSale1Dto()));
+        assertThat(actual.getNext()).isNull();
+    }
+
+    @Test
+    void readSoldBetweenWithEmptyRange() {
+        // given
+        LocalDateTime at = TestDataProvider.SOLD_AT;
+        // when then
+        assertThatThrownBy(() -> controller.readSoldBetween(at, at, 0, 2))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void readTotalsHappyPath() {
+        // given
+        SalesTotal total = new SalesTotal(1, 8, 792);
+        SalesTotalDto totalDto = new SalesTotalDto(1, 8, 792);
+        when(saleManager.readTotals(SalesDimension.CUSTOMER, 5)).thenReturn(List.of(total));
+        when(saleMapper.salesTotal2salesTotalDto(total)).thenReturn(totalDto);
+        // when
+        Collection<SalesTotalDto> actual = controller.readTotals(SalesDimension.CUSTOMER, 5);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(totalDto));
+    }
+
+    @Test
+    void rebuildTotalsHappyPath() {
+        // when
+        controller.rebuildTotals();
+        // then
+        verify(saleManager).rebuildTotals();
+    }
+
+    @Test
+    void exportAsCsvHappyPath() throws IOException {
+        // given
+        givenExportedSale1();
+        // when
+        String actual = export("csv");
+        // then
+        assertThat(actual).isEqualTo("id,salesPersonId,customerId,productId,productPrice,quantity,soldAt\n"
+                + "1,1,1,1,99.0,3.0,2020-09-01T12:00\n");
+    }
+
+    @Test
+    void exportAsNdjsonHappyPath() throws IOException {
+        // given
+        givenExportedSale1();
+        // when
+        String actual = export("ndjson");
+        // then
+        assertThat(actual).isEqualTo(objectMapper.writeValueAsString(TestDataProvider.getSale1Dto()) + "\n");
+    }
+
+    @Test
+    void exportWithUnknownFormat() {
+        // when then
+        assertThatThrownBy(() -> controller.exportAllSales("xml"))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void streamChangesSubscribes() throws Exception {
+        // given
+        SaleSubscription subscription = mock(SaleSubscription.class);
+        ArgumentCaptor<SaleChangeListener> listener = ArgumentCaptor.forClass(SaleChangeListener.class);
+        when(saleStreamManager.subscribe(listener.capture())).thenReturn(subscription);
+        SaleChange change = new SaleChange(SaleChangeType.RECORDED, TestDataProvider.getSale1());
+        when(saleMapper.saleChange2saleChangeDto(change))
+                .thenReturn(new SaleChangeDto("RECORDED", TestDataProvider.getSale1Dto()));
+        // when
+        SseEmitter actual = controller.streamChanges();
+        listener.getValue().onChange(change);
+        listener.getValue().onDropped("slow");
+        // then
+        assertThat(actual).isNotNull();
+        verify(saleMapper).saleChange2saleChangeDto(change);
+    }
+
+    @Test
+    void streamChangesWithTooManySubscribers() throws Exception {
+        // given
+        when(saleStreamManager.subscribe(any())).thenThrow(new TooManySubscribersException("full"));
+        // when then
+        assertThatThrownBy(() -> controller.streamChanges())
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @Test
     void createSaleHappyPath() throws SaleAlreadyExistsException {
         // given
@@ -56,17 +238,122 @@ class SaleControllerTest {
         when(saleManager.record(sale1)).thenReturn(sale1);
         when(saleMapper.sale2saleDto(sale1)).thenReturn(sale1Dto);
         // when
-        SaleDto actual = controller.create(sale1Dto);
+        SaleDto actual = controller.create(sale1Dto, null);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(sale1Dto);
     }
 
+    @Test
+    void createSaleWithIdempotencyKey() throws Exception {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        SaleDto sale1Dto = TestDataProvider.getSale1Dto();
+        when(saleMapper.saleDto2sale(sale1Dto)).thenReturn(sale1);
+        when(saleManager.record(sale1, "key-1")).thenReturn(sale1);
+        when(saleMapper.sale2saleDto(sale1)).thenReturn(sale1Dto);
+        // when
+        SaleDto actual = controller.create(sale1Dto, "key-1");
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(sale1Dto);
+    }
+
+    @Test
+    void createSaleWithConflictingIdempotencyKey() throws Exception {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        SaleDto sale1Dto = TestDataProvider.getSale1Dto();
+        when(saleMapper.saleDto2sale(sale1Dto)).thenReturn(sale1);
+        when(saleManager.record(sale1, "key-1")).thenThrow(new IdempotencyKeyConflictException("in use"));
+        // when then
+        assertThatThrownBy(() -> controller.create(sale1Dto, "key-1"))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void createSaleWithTooLongIdempotencyKey() {
+        // when then
+        assertThatThrownBy(() -> controller.create(TestDataProvider.getSale1Dto(), "k".repeat(65)))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status")
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void createBatchHappyPath() {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        SaleDto sale1Dto = TestDataProvider.getSale1Dto();
+        SaleRecordResult result = new SaleRecordResult(0, RecordStatus.RECORDED, sale1, null);
+        SaleRecordResultDto resultDto = new SaleRecordResultDto(0, "RECORDED", sale1Dto, null);
+        when(saleMapper.saleDto2sale(sale1Dto)).thenReturn(sale1);
+        when(saleManager.recordAll(List.of(sale1))).thenReturn(List.of(result));
+        when(saleMapper.saleRecordResult2saleRecordResultDto(result)).thenReturn(resultDto);
+        // when
+        Collection<SaleRecordResultDto> actual = controller.createBatch(List.of(sale1Dto));
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(resultDto));
+    }
+
+    @Test
+    void createBatchFromNdjsonHappyPath() throws IOException {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        SaleDto sale1Dto = TestDataProvider.getSale1Dto();
+        String body = objectMapper.writeValueAsString(sale1Dto) + "\n\n";
+        when(saleMapper.saleDto2sale(sale1Dto)).thenReturn(sale1);
+        when(saleManager.recordAll(List.of(sale1))).thenReturn(List.of());
+        // when
+        Collection<SaleRecordResultDto> actual = controller.createBatchFromNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of());
+    }
+
+    @Test
+    void createBatchFromNdjsonStopsReadingPastTheMaximumSize() throws IOException {
+        // given
+        byte[] line = (objectMapper.writeValueAsString(TestDataProvider.getSale1Dto()) + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        InputStream endless = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                return line[position++ % line.length];
+            }
+        };
+        // when then
+        assertThatThrownBy(() -> controller.createBatchFromNdjson(endless))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatus())
+                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void createBatchFromMalformedNdjson() {
+        // given
+        byte[] body = "{\"id\": ".getBytes(StandardCharsets.UTF_8);
+        // when then
+        assertThatThrownBy(() -> controller.createBatchFromNdjson(new ByteArrayInputStream(body)))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void createBatchTooLarge() {
+        // given
+        List<SaleDto> saleDtos = Collections.nCopies(10001, TestDataProvider.getSale1Dto());
+        // when then
+        assertThatThrownBy(() -> controller.createBatch(saleDtos))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
     @Test
     void deleteFromQueryParamHappyPath() throws SaleNotFoundException {
         // given
         Sale sale1 = TestDataProvider.getSale1();
-        when(saleManager.readById(sale1.getId())).thenReturn(sale1);
-        doNothing().when(saleManager).delete(sale1);
+        doNothing().when(saleManager).deleteById(sale1.getId());
         // when
         controller.delete(sale1.getId());
         // then is not necessary, mock are checked by default
@@ -77,14 +364,32 @@ class SaleControllerTest {
         // given
         final int notFoundSaleId = TestDataProvider.unknownId;
         doThrow(new SaleNotFoundException(String.format("Cannot find employee with IDd %d", notFoundSaleId)))
-                .when(saleManager).readById(notFoundSaleId);
+                .when(saleManager).deleteById(notFoundSaleId);
         // when then
         assertThatThrownBy(() -> controller.delete(notFoundSaleId))
                 .isInstanceOf(ResponseStatusException.class);
     }
 
+    @SuppressWarnings("unchecked")
+    private void givenExportedSale1() {
+        doAnswer(invocation -> {
+            ((Consumer<Sale>) invocation.getArgument(0)).accept(TestDataProvider.getSale1());
+            return null;
+        }).when(saleManager).exportAll(any());
+        when(saleMapper.sale2saleDto(TestDataProvider.getSale1())).thenReturn(TestDataProvider.getSale1Dto());
+    }
+
+    private String export(String format) throws IOException {
+        StreamingResponseBody body = controller.exportAllSales(format).getBody();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
     private static class TestDataProvider {
 
+        static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
         private static final int unknownId = -1;
 
         public static Employee getJaneDoeModel() {
@@ -126,7 +431,7 @@ class SaleControllerTest {
         }
 
         public static Sale getSale1() {
-            return new Sale(1, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 3);
+            return new Sale(1, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 3, SOLD_AT);
         }
 
         public static SaleDto getSale1Dto() {
@@ -136,11 +441,12 @@ class SaleControllerTest {
                     .customer(getJohnDoeDto())
                     .product(getHoverboardDto())
                     .quantity(3)
+                    .soldAt(SOLD_AT)
                     .build();
         }
 
         public static Sale getSale2() {
-            return new Sale(2, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 5);
+            return new Sale(2, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 5, SOLD_AT);
         }
 
         public static SaleDto getSale2Dto() {
@@ -150,6 +456,7 @@ class SaleControllerTest {
                     .customer(getJohnDoeDto())
                     .product(getHoverboardDto())
                     .quantity(5)
+                    .soldAt(SOLD_AT)
                     .build();
         }
     }
@@ -0,0 +1,153 @@
+package hu.uni.eku.tzs.dao;
+
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.IdempotencyKeyEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.dao.entity.SaleEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SaleRepositoryTest {
+
+    static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+    @Autowired
+    SaleRepository saleRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    int firstId;
+
+    int firstCustomerId;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            SaleEntity sale = testEntityManager.persist(SaleEntity.builder()
+                    .salesPerson(testEntityManager.persist(new EmployeeEntity(0, "Jane" + i, "x", "Doe")))
+                    .customer(testEntityManager.persist(new CustomerEntity(0, "John" + i, "x", "Doe")))
+                    .product(testEntityManager.persist(new ProductEntity(0, "Product" + i, i)))
+                    .quantity(i)
+                    .soldAt(SOLD_AT.plusHours(i / 3))
+                    .build());
+            firstId = i == 1 ? sale.getId() : firstId;
+            firstCustomerId = i == 1 ? sale.getCustomer().getId() : firstCustomerId;
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfSalesIsOneStatement() {
+        // when
+        List<SaleEntity> page = saleRepository.findAllByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 10));
+        page.forEach(SaleRepositoryTest::touchReferences);
+        // then
+        assertThat(page).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saleByIdIsOneStatement() {
+        // when
+        Optional<SaleEntity> sale = saleRepository.findById(firstId);
+        sale.ifPresent(SaleRepositoryTest::touchReferences);
+        // then
+        assertThat(sale).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saleWithIdempotencyKeysIsOneStatement() {
+        // given
+        testEntityManager.persist(new IdempotencyKeyEntity("key-1", firstId, SOLD_AT));
+        testEntityManager.persist(new IdempotencyKeyEntity("key-2", firstId, SOLD_AT));
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+        // when
+        List<SaleWithIdempotencyKeyView> rows = saleRepository.findWithIdempotencyKeysById(firstId);
+        rows.forEach(row -> touchReferences(row.getSale()));
+        // then
+        assertThat(rows).extracting(SaleWithIdempotencyKeyView::getIdempotencyKey)
+                .containsExactlyInAnyOrder("key-1", "key-2");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saleWithoutIdempotencyKeysIsOneRow() {
+        // when
+        List<SaleWithIdempotencyKeyView> rows = saleRepository.findWithIdempotencyKeysById(firstId);
+        // then
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getSale().getId()).isEqualTo(firstId);
+        assertThat(rows.get(0).getIdempotencyKey()).isNull();
+    }
+
+    @Test
+    void salesOfCustomerIsOneStatement() {
+        // when
+        List<SaleEntity> page = saleRepository.findAllByCustomerIdAndIdGreaterThanOrderByIdAsc(firstCustomerId, 0,
+                PageRequest.of(0, 10));
+        page.forEach(SaleRepositoryTest::touchReferences);
+        // then
+        assertThat(page).extracting(SaleEntity::getId).containsExactly(firstId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void salesSoldBetweenContinueAfterTheCursor() {
+        // when
+        List<SaleEntity> window = saleRepository.findAllSoldBetween(SOLD_AT, SOLD_AT.plusHours(1), firstId,
+                PageRequest.of(0, 10));
+        // then
+        assertThat(window).extracting(SaleEntity::getId).containsExactly(firstId + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void streamOfAllSalesIsOneStatement() {
+        // when
+        List<SaleEntity> sales;
+        try (Stream<SaleEntity> stream = saleRepository.streamAll()) {
+            sales = stream.peek(SaleRepositoryTest::touchReferences).collect(Collectors.toList());
+        }
+        // then
+        assertThat(sales).extracting(SaleEntity::getId).containsExactly(firstId, firstId + 1, firstId + 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static void touchReferences(SaleEntity sale) {
+        assertThat(sale.getSalesPerson().getFirstName()).startsWith("Jane");
+        assertThat(sale.getCustomer().getFirstName()).startsWith("John");
+        assertThat(sale.getProduct().getName()).startsWith("Product");
+    }
+}
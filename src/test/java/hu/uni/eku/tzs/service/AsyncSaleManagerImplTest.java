@@ -0,0 +1,148 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.RecordStatus;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.service.exceptions.SaleQueueFullException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncSaleManagerImplTest {
+
+    @Mock
+    SaleManager saleManager;
+
+    @Test
+    void queuedSalesAreRecordedInBatches() throws Exception {
+        // given
+        when(saleManager.recordAll(anyList())).thenAnswer(invocation -> {
+            List<Sale> sales = invocation.getArgument(0);
+            return sales.stream()
+                    .map(sale -> new SaleRecordResult(0, RecordStatus.RECORDED, sale, null))
+                    .collect(Collectors.toList());
+        });
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 10, 5);
+        CompletableFuture<SaleRecordResult> first = service.record(TestDataProvider.getSale(1));
+        CompletableFuture<SaleRecordResult> second = service.record(TestDataProvider.getSale(2));
+        // when
+        service.start();
+        service.stop();
+        // then
+        verify(saleManager).recordAll(List.of(TestDataProvider.getSale(1), TestDataProvider.getSale(2)));
+        assertThat(first.get(1, TimeUnit.SECONDS).getSale()).isEqualTo(TestDataProvider.getSale(1));
+        assertThat(second.get(1, TimeUnit.SECONDS).getSale()).isEqualTo(TestDataProvider.getSale(2));
+    }
+
+    @Test
+    void fullQueueRejectsSales() throws Exception {
+        // given
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 1, 5);
+        service.record(TestDataProvider.getSale(1));
+        // when then
+        assertThatThrownBy(() -> service.record(TestDataProvider.getSale(1)))
+                .isInstanceOf(SaleQueueFullException.class);
+    }
+
+    @Test
+    void stoppedManagerRejectsSales() throws Exception {
+        // given
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 10, 5);
+        service.start();
+        service.stop();
+        // when then
+        assertThatThrownBy(() -> service.record(TestDataProvider.getSale(1)))
+                .isInstanceOf(SaleQueueFullException.class);
+    }
+
+    @Test
+    void failedBatchFailsEveryFuture() throws Exception {
+        // given
+        when(saleManager.recordAll(anyList())).thenThrow(new IllegalStateException("database is down"));
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 10, 5);
+        service.start();
+        CompletableFuture<SaleRecordResult> future = service.record(TestDataProvider.getSale(1));
+        // when
+        service.stop();
+        // then
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void failedBatchIsRetriedSaleBySale() throws Exception {
+        // given
+        Sale invalid = TestDataProvider.getSale(1);
+        when(saleManager.recordAll(anyList())).thenAnswer(invocation -> {
+            List<Sale> sales = invocation.getArgument(0);
+            if (sales.contains(invalid)) {
+                throw new IllegalStateException("invalid sale");
+            }
+            return sales.stream()
+                    .map(sale -> new SaleRecordResult(0, RecordStatus.RECORDED, sale, null))
+                    .collect(Collectors.toList());
+        });
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 10, 5);
+        CompletableFuture<SaleRecordResult> failing = service.record(invalid);
+        CompletableFuture<SaleRecordResult> valid = service.record(TestDataProvider.getSale(2));
+        // when
+        service.start();
+        service.stop();
+        // then
+        assertThatThrownBy(() -> failing.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(valid.get(1, TimeUnit.SECONDS).getSale()).isEqualTo(TestDataProvider.getSale(2));
+        verify(saleManager).recordAll(List.of(TestDataProvider.getSale(2)));
+    }
+
+    @Test
+    void failedWriterFailsTheQueuedSalesAndRejectsNewOnes() throws Exception {
+        // given
+        when(saleManager.recordAll(anyList())).thenThrow(new Error("writer failed"));
+        AsyncSaleManagerImpl service = new AsyncSaleManagerImpl(saleManager, 10, 1);
+        service.record(TestDataProvider.getSale(1));
+        CompletableFuture<SaleRecordResult> queued = service.record(TestDataProvider.getSale(2));
+        // when
+        service.start();
+        // then
+        assertThatThrownBy(() -> queued.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SaleQueueFullException.class);
+        assertThatThrownBy(() -> service.record(TestDataProvider.getSale(3)))
+                .isInstanceOf(SaleQueueFullException.class);
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static Sale getSale(int id) {
+            return new Sale(id,
+                    new Employee(1, "Jane", "x", "Doe"),
+                    new Customer(1, "John", "x", "Doe"),
+                    new Product(1, "Hoverboard", 99),
+                    3,
+                    SOLD_AT);
+        }
+    }
+}
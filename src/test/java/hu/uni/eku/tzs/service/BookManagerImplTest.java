@@ -3,13 +3,19 @@ package hu.uni.eku.tzs.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import hu.uni.eku.tzs.dao.AuthorRepository;
 import hu.uni.eku.tzs.dao.BookRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
+import hu.uni.eku.tzs.dao.ReferenceUpsertRepository;
 import hu.uni.eku.tzs.dao.entity.AuthorEntity;
 import hu.uni.eku.tzs.dao.entity.BookEntity;
 import hu.uni.eku.tzs.model.Author;
 import hu.uni.eku.tzs.model.Book;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.BookAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.BookNotFoundException;
 import java.util.Collection;
@@ -20,6 +26,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
 @ExtendWith(MockitoExtension.class)
 class BookManagerImplTest {
@@ -30,6 +37,15 @@ class BookManagerImplTest {
     @Mock
     AuthorRepository authorRepository;
 
+    @Mock
+    KeyedInsertRepository keyedInsertRepository;
+
+    @Mock
+    ReferenceUpsertRepository referenceUpsertRepository;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
+
     @InjectMocks
     BookManagerImpl service;
 
@@ -39,15 +55,15 @@ class BookManagerImplTest {
         Author douglasAdams = TestDataProvider.getDouglasAdamsModel();
         AuthorEntity douglasAddamsEntity = TestDataProvider.getDouglasAdamsEntity();
         Book hg2g = TestDataProvider.getHitchhikersGuide();
-        BookEntity hg2gEntity = TestDataProvider.getHitchhikersGuideEntity();
-        when(bookRepository.findById(any())).thenReturn(Optional.empty());
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN)).thenReturn(false);
         when(authorRepository.findById(douglasAdams.getId())).thenReturn(Optional.ofNullable(douglasAddamsEntity));
-        when(bookRepository.save(any())).thenReturn(hg2gEntity);
         // when
         Book actual = service.record(hg2g);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(hg2g);
-//        assertThat(actual).isEqualToComparingFieldByFieldRecursively(hg2g);
+        verify(keyedInsertRepository).insertBook(TestDataProvider.getHitchhikersGuideEntity());
+        verify(bookRepository, never()).existsById(any());
+        verify(existenceFilterManager).added(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN);
     }
 
     @Test
@@ -56,30 +72,80 @@ class BookManagerImplTest {
         Author frankHerbert = TestDataProvider.getFrankHerbertModel();
         AuthorEntity frankHerbertEntity = TestDataProvider.getFrankHerbertEntity();
         Book dune = TestDataProvider.getDune();
-        BookEntity duneEntity = TestDataProvider.getDuneEntity();
-        when(bookRepository.findById(TestDataProvider.DUNE_ISBN)).thenReturn(Optional.empty());
-        when(authorRepository.findById(frankHerbert.getId())).thenReturn(Optional.empty());
-        when(authorRepository.save(frankHerbertEntity)).thenReturn(frankHerbertEntity);
-        when(bookRepository.save(duneEntity)).thenReturn(duneEntity);
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.DUNE_ISBN)).thenReturn(true);
+        when(bookRepository.existsById(TestDataProvider.DUNE_ISBN)).thenReturn(false);
+        when(authorRepository.findById(frankHerbert.getId()))
+            .thenReturn(Optional.empty(), Optional.of(frankHerbertEntity));
         // when
         Book actual = service.record(dune);
         // then
         assertThat(actual).usingRecursiveComparison()
             .isEqualTo(dune);
+        verify(referenceUpsertRepository).upsertAuthors(List.of(frankHerbertEntity));
+        verify(authorRepository, never()).save(any());
+        verify(keyedInsertRepository).insertBook(TestDataProvider.getDuneEntity());
+    }
+
+    @Test
+    void recordBookAuthorRecordedConcurrentlyReturnsTheStoredAuthor() throws BookAlreadyExistsException {
+        // given
+        Author frankHerbert = TestDataProvider.getFrankHerbertModel();
+        AuthorEntity storedEntity = TestDataProvider.getFrankHerbertEntity();
+        storedEntity.setNationality("stored");
+        Book dune = TestDataProvider.getDune();
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.DUNE_ISBN)).thenReturn(false);
+        when(authorRepository.findById(frankHerbert.getId()))
+            .thenReturn(Optional.empty(), Optional.of(storedEntity));
+        // when
+        Book actual = service.record(dune);
+        // then
+        assertThat(actual.getAuthor().getNationality()).isEqualTo("stored");
+    }
+
+    @Test
+    void recordBookAuthorWithoutIdIsGivenAGeneratedOne() throws BookAlreadyExistsException {
+        // given
+        Book dune = TestDataProvider.getDune();
+        dune.getAuthor().setId(0);
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.DUNE_ISBN)).thenReturn(false);
+        when(authorRepository.save(any())).thenReturn(TestDataProvider.getFrankHerbertEntity());
+        // when
+        Book actual = service.record(dune);
+        // then
+        assertThat(actual).usingRecursiveComparison()
+            .isEqualTo(TestDataProvider.getDune());
+        verify(authorRepository, never()).findById(any());
+        verify(referenceUpsertRepository, never()).upsertAuthors(any());
     }
 
     @Test
     void recordBookAlreadyExistsException() {
         // given
         Book hg2g = TestDataProvider.getHitchhikersGuide();
-        BookEntity hg2gEntity = TestDataProvider.getHitchhikersGuideEntity();
-        when(bookRepository.findById(TestDataProvider.HG2G_ISBN)).thenReturn(Optional.ofNullable(hg2gEntity));
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN)).thenReturn(true);
+        when(bookRepository.existsById(TestDataProvider.HG2G_ISBN)).thenReturn(true);
         // when
         assertThatThrownBy(() -> {
             service.record(hg2g);
         }).isInstanceOf(BookAlreadyExistsException.class);
     }
 
+    @Test
+    void recordBookRecordedConcurrently() {
+        // given
+        Author douglasAdams = TestDataProvider.getDouglasAdamsModel();
+        Book hg2g = TestDataProvider.getHitchhikersGuide();
+        when(existenceFilterManager.mightExist(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN)).thenReturn(false);
+        when(authorRepository.findById(douglasAdams.getId()))
+            .thenReturn(Optional.of(TestDataProvider.getDouglasAdamsEntity()));
+        doThrow(new DuplicateKeyException("Duplicate entry")).when(keyedInsertRepository).insertBook(any());
+        // when then
+        assertThatThrownBy(() -> {
+            service.record(hg2g);
+        }).isInstanceOf(BookAlreadyExistsException.class);
+        verify(existenceFilterManager, never()).added(any(), any());
+    }
+
     @Test
     void readByIsbnHappyPath() throws BookNotFoundException {
         // given
@@ -138,6 +204,28 @@ class BookManagerImplTest {
 
     }
 
+    @Test
+    void deleteByIsbnHappyPath() throws BookNotFoundException {
+        // given
+        when(bookRepository.deleteIfPresent(TestDataProvider.HG2G_ISBN)).thenReturn(1);
+        // when
+        service.deleteByIsbn(TestDataProvider.HG2G_ISBN);
+        // then
+        verify(bookRepository, never()).findById(any());
+        verify(existenceFilterManager).removed(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN);
+    }
+
+    @Test
+    void deleteByIsbnBookNotFoundException() {
+        // given
+        when(bookRepository.deleteIfPresent(TestDataProvider.UNKNOWN_ISBN)).thenReturn(0);
+        // when then
+        assertThatThrownBy(() -> service.deleteByIsbn(TestDataProvider.UNKNOWN_ISBN))
+            .isInstanceOf(BookNotFoundException.class)
+            .hasMessageContaining(String.valueOf(TestDataProvider.UNKNOWN_ISBN));
+        verify(existenceFilterManager, never()).removed(any(), any());
+    }
+
     private static class TestDataProvider {
 
         public static final String UNKNOWN_ISBN = "1-00000-000-X";
@@ -0,0 +1,32 @@
+package hu.uni.eku.tzs.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni.eku.tzs.model.CacheStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class CacheStatisticsManagerImplTest {
+
+    @Test
+    void readAllReportsHitsAndMisses() {
+        // given
+        CaffeineCache products = new CaffeineCache("products", Caffeine.newBuilder().recordStats().build());
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(products));
+        cacheManager.initializeCaches();
+        products.put(1, "Hoverboard");
+        products.get(1);
+        products.get(2);
+        CacheStatisticsManagerImpl service = new CacheStatisticsManagerImpl(cacheManager);
+        // when
+        List<CacheStatistics> actual = service.readAll();
+        // then
+        assertThat(actual).usingRecursiveComparison()
+                .isEqualTo(List.of(new CacheStatistics("products", 1, 1, 1, 0.5, 0)));
+    }
+}
@@ -1,8 +1,10 @@
 package hu.uni.eku.tzs.service;
 
 import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.entity.CustomerEntity;
 import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.CustomerAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.CustomerNotFoundException;
 import org.junit.jupiter.api.Test;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +25,9 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +36,12 @@ class CustomerManagerImplTest {
     @Mock
     CustomerRepository customerRepository;
 
+    @Mock
+    KeyedInsertRepository keyedInsertRepository;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
+
     @InjectMocks
     CustomerManagerImpl service;
 
@@ -37,26 +49,52 @@ class CustomerManagerImplTest {
     void recordCustomerHappyPath() throws CustomerAlreadyExistsException {
         // given
         Customer customer = TestDataProvider.getJohnDoe();
-        CustomerEntity customerEntity = TestDataProvider.getJohnDoeEntity();
-        when(customerRepository.findById(any())).thenReturn(Optional.empty());
-        when(customerRepository.save(any())).thenReturn(customerEntity);
+        when(existenceFilterManager.mightExist(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId)).thenReturn(false);
         // when
         Customer actual = service.record(customer);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(customer);
+        verify(keyedInsertRepository).insertCustomer(TestDataProvider.getJohnDoeEntity());
+        verify(customerRepository, never()).existsById(any());
+        verify(existenceFilterManager).added(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId);
+    }
+
+    @Test
+    void recordCustomerWithoutIdIsGivenAGeneratedOne() throws CustomerAlreadyExistsException {
+        // given
+        Customer customer = TestDataProvider.getJohnDoe();
+        customer.setId(0);
+        when(customerRepository.save(any())).thenReturn(TestDataProvider.getJohnDoeEntity());
+        // when
+        Customer actual = service.record(customer);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(TestDataProvider.getJohnDoe());
+        verify(existenceFilterManager, never()).mightExist(any(), any());
+        verify(existenceFilterManager).added(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId);
     }
 
     @Test
     void recordCustomerAlreadyExistsException() throws CustomerAlreadyExistsException {
-        //given
+        // given
         Customer customer = TestDataProvider.getJohnDoe();
-        CustomerEntity customerEntity = TestDataProvider.getJohnDoeEntity();
-        when(customerRepository.findById(TestDataProvider.johnDoeId))
-                .thenReturn(Optional.ofNullable(customerEntity));
+        when(existenceFilterManager.mightExist(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId)).thenReturn(true);
+        when(customerRepository.existsById(TestDataProvider.johnDoeId)).thenReturn(true);
         // when then
         assertThatThrownBy(() -> service.record(customer))
                 .isInstanceOf(CustomerAlreadyExistsException.class);
+        verify(keyedInsertRepository, never()).insertCustomer(any());
+    }
 
+    @Test
+    void recordCustomerRecordedConcurrently() {
+        // given
+        Customer customer = TestDataProvider.getJohnDoe();
+        when(existenceFilterManager.mightExist(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId)).thenReturn(false);
+        doThrow(new DuplicateKeyException("Duplicate entry")).when(keyedInsertRepository).insertCustomer(any());
+        // when then
+        assertThatThrownBy(() -> service.record(customer))
+                .isInstanceOf(CustomerAlreadyExistsException.class);
+        verify(existenceFilterManager, never()).added(any(), any());
     }
 
     @Test
@@ -117,6 +155,28 @@ class CustomerManagerImplTest {
     }
 
 
+    @Test
+    void deleteByIdHappyPath() throws CustomerNotFoundException {
+        // given
+        when(customerRepository.deleteIfPresent(TestDataProvider.johnDoeId)).thenReturn(1);
+        // when
+        service.deleteById(TestDataProvider.johnDoeId);
+        // then
+        verify(customerRepository, never()).findById(any());
+        verify(existenceFilterManager).removed(KeyedTable.CUSTOMERS, TestDataProvider.johnDoeId);
+    }
+
+    @Test
+    void deleteByIdCustomerNotFoundException() {
+        // given
+        when(customerRepository.deleteIfPresent(TestDataProvider.unknownId)).thenReturn(0);
+        // when then
+        assertThatThrownBy(() -> service.deleteById(TestDataProvider.unknownId))
+                .isInstanceOf(CustomerNotFoundException.class)
+                .hasMessageContaining(String.valueOf(TestDataProvider.unknownId));
+        verify(existenceFilterManager, never()).removed(any(), any());
+    }
+
     private static class TestDataProvider {
         public static final int johnDoeId = 1;
         public static final int janeDoeId = 2;
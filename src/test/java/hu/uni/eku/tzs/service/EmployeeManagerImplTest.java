@@ -1,8 +1,10 @@
 package hu.uni.eku.tzs.service;
 
 import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
 import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.service.exceptions.EmployeeAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.EmployeeNotFoundException;
 import org.junit.jupiter.api.Test;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +25,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +36,12 @@ class EmployeeManagerImplTest {
     @Mock
     EmployeeRepository employeeRepository;
 
+    @Mock
+    KeyedInsertRepository keyedInsertRepository;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
+
     @InjectMocks
     EmployeeManagerImpl service;
 
@@ -37,25 +49,52 @@ class EmployeeManagerImplTest {
     void recordEmployeeHappyPath() throws EmployeeAlreadyExistsException {
         // given
         Employee employee = TestDataProvider.getJohnDoe();
-        EmployeeEntity employeeEntity = TestDataProvider.getJohnDoeEntity();
-        when(employeeRepository.findById(any())).thenReturn(Optional.empty());
-        when(employeeRepository.save(any())).thenReturn(employeeEntity);
+        when(existenceFilterManager.mightExist(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId)).thenReturn(false);
         // when
         Employee actual = service.record(employee);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(employee);
+        verify(keyedInsertRepository).insertEmployee(TestDataProvider.getJohnDoeEntity());
+        verify(employeeRepository, never()).existsById(any());
+        verify(existenceFilterManager).added(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId);
+    }
+
+    @Test
+    void recordEmployeeWithoutIdIsGivenAGeneratedOne() throws EmployeeAlreadyExistsException {
+        // given
+        Employee employee = TestDataProvider.getJohnDoe();
+        employee.setId(0);
+        when(employeeRepository.save(any())).thenReturn(TestDataProvider.getJohnDoeEntity());
+        // when
+        Employee actual = service.record(employee);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(TestDataProvider.getJohnDoe());
+        verify(existenceFilterManager, never()).mightExist(any(), any());
+        verify(existenceFilterManager).added(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId);
     }
 
     @Test
     void recordEmployeeAlreadyExistsException() throws EmployeeAlreadyExistsException {
         // given
         Employee employee = TestDataProvider.getJohnDoe();
-        EmployeeEntity employeeEntity = TestDataProvider.getJohnDoeEntity();
-        when(employeeRepository.findById(TestDataProvider.johnDoeId))
-                .thenReturn(Optional.ofNullable(employeeEntity));
+        when(existenceFilterManager.mightExist(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId)).thenReturn(true);
+        when(employeeRepository.existsById(TestDataProvider.johnDoeId)).thenReturn(true);
+        // when then
+        assertThatThrownBy(() -> service.record(employee))
+                .isInstanceOf(EmployeeAlreadyExistsException.class);
+        verify(keyedInsertRepository, never()).insertEmployee(any());
+    }
+
+    @Test
+    void recordEmployeeRecordedConcurrently() {
+        // given
+        Employee employee = TestDataProvider.getJohnDoe();
+        when(existenceFilterManager.mightExist(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId)).thenReturn(false);
+        doThrow(new DuplicateKeyException("Duplicate entry")).when(keyedInsertRepository).insertEmployee(any());
         // when then
         assertThatThrownBy(() -> service.record(employee))
                 .isInstanceOf(EmployeeAlreadyExistsException.class);
+        verify(existenceFilterManager, never()).added(any(), any());
     }
 
     @Test
@@ -115,6 +154,28 @@ class EmployeeManagerImplTest {
                 .isEqualTo(employee);
     }
 
+    @Test
+    void deleteByIdHappyPath() throws EmployeeNotFoundException {
+        // given
+        when(employeeRepository.deleteIfPresent(TestDataProvider.johnDoeId)).thenReturn(1);
+        // when
+        service.deleteById(TestDataProvider.johnDoeId);
+        // then
+        verify(employeeRepository, never()).findById(any());
+        verify(existenceFilterManager).removed(KeyedTable.EMPLOYEES, TestDataProvider.johnDoeId);
+    }
+
+    @Test
+    void deleteByIdEmployeeNotFoundException() {
+        // given
+        when(employeeRepository.deleteIfPresent(TestDataProvider.unknownId)).thenReturn(0);
+        // when then
+        assertThatThrownBy(() -> service.deleteById(TestDataProvider.unknownId))
+                .isInstanceOf(EmployeeNotFoundException.class)
+                .hasMessageContaining(String.valueOf(TestDataProvider.unknownId));
+        verify(existenceFilterManager, never()).removed(any(), any());
+    }
+
     private static class TestDataProvider {
         public static final int johnDoeId = 1;
         public static final int janeDoeId = 2;
@@ -0,0 +1,155 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.dao.SalesTotalView;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeePerformanceManagerImplTest {
+
+    @Mock
+    SaleRepository saleRepository;
+
+    @InjectMocks
+    EmployeePerformanceManagerImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(saleRepository.sumBySalesPerson(Pageable.unpaged()))
+                .thenReturn(List.of(TestDataProvider.getTotal(1, 8, 792), TestDataProvider.getTotal(2, 10, 500)));
+        service.seed();
+    }
+
+    @Test
+    void readTotalOfSeededEmployee() {
+        // when
+        SalesTotal actual = service.readTotal(1);
+        // then
+        assertThat(actual).isEqualTo(new SalesTotal(1, 8, 792));
+    }
+
+    @Test
+    void importedSalesReseedTheCounters() {
+        // given
+        when(saleRepository.sumBySalesPerson(Pageable.unpaged()))
+                .thenReturn(List.of(TestDataProvider.getTotal(2, 3, 150)));
+        // when
+        service.onSalesImported();
+        // then
+        assertThat(service.readTotal(1)).isEqualTo(new SalesTotal(1, 0, 0));
+        assertThat(service.readTotal(2)).isEqualTo(new SalesTotal(2, 3, 150));
+    }
+
+    @Test
+    void changedPricesReseedTheCounters() {
+        // given
+        when(saleRepository.sumBySalesPerson(Pageable.unpaged()))
+                .thenReturn(List.of(TestDataProvider.getTotal(1, 8, 880), TestDataProvider.getTotal(2, 10, 600)));
+        // when
+        service.onProductPricesChanged();
+        // then
+        assertThat(service.readTotal(1)).isEqualTo(new SalesTotal(1, 8, 880));
+        assertThat(service.readTotal(2)).isEqualTo(new SalesTotal(2, 10, 600));
+    }
+
+    @Test
+    void readTotalOfEmployeeWithoutSales() {
+        // when
+        SalesTotal actual = service.readTotal(3);
+        // then
+        assertThat(actual).isEqualTo(new SalesTotal(3, 0, 0));
+    }
+
+    @Test
+    void recordedSalesAreCounted() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(1, 2, 3))));
+        // then
+        assertThat(service.readTotal(2)).isEqualTo(new SalesTotal(2, 13, 515));
+    }
+
+    @Test
+    void modifiedSalesReplaceTheirPreviousCounts() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(
+                List.of(TestDataProvider.getSale(1, 1, 3)), List.of(TestDataProvider.getSale(1, 2, 3))));
+        // then
+        assertThat(service.readTotal(1)).isEqualTo(new SalesTotal(1, 5, 777));
+        assertThat(service.readTotal(2)).isEqualTo(new SalesTotal(2, 13, 515));
+    }
+
+    @Test
+    void deletedSalesAreSubtracted() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(TestDataProvider.getSale(1, 1, 8)), List.of()));
+        // then
+        assertThat(service.readTotal(1)).isEqualTo(new SalesTotal(1, 0, 752));
+    }
+
+    @Test
+    void readTopByRevenue() {
+        // when
+        List<SalesTotal> actual = service.readTop(SalesMeasure.REVENUE, 1);
+        // then
+        assertThat(actual).containsExactly(new SalesTotal(1, 8, 792));
+    }
+
+    @Test
+    void readEveryEmployeeByQuantity() {
+        // when
+        List<SalesTotal> actual = service.readTop(SalesMeasure.QUANTITY, 0);
+        // then
+        assertThat(actual).containsExactly(new SalesTotal(2, 10, 500), new SalesTotal(1, 8, 792));
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static Sale getSale(int id, int salesPersonId, int quantity) {
+            return new Sale(id,
+                    new Employee(salesPersonId, "Jane", "x", "Doe"),
+                    new Customer(1, "John", "x", "Doe"),
+                    new Product(1, "Pen", 5),
+                    quantity,
+                    SOLD_AT);
+        }
+
+        public static SalesTotalView getTotal(int id, long quantity, double revenue) {
+            return new SalesTotalView() {
+                @Override
+                public int getId() {
+                    return id;
+                }
+
+                @Override
+                public long getQuantity() {
+                    return quantity;
+                }
+
+                @Override
+                public double getRevenue() {
+                    return revenue;
+                }
+            };
+        }
+    }
+}
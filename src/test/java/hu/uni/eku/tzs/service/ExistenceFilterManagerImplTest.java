@@ -0,0 +1,122 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.BookRepository;
+import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.model.KeyedTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExistenceFilterManagerImplTest {
+
+    @Mock
+    SaleRepository saleRepository;
+
+    @Mock
+    CustomerRepository customerRepository;
+
+    @Mock
+    EmployeeRepository employeeRepository;
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    @InjectMocks
+    ExistenceFilterManagerImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "expectedKeys", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void mightExistBeforeTheFiltersAreLoaded() {
+        // when then
+        assertThat(service.mightExist(KeyedTable.SALES, 1)).isTrue();
+        assertThat(service.mightExist(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN)).isTrue();
+    }
+
+    @Test
+    void rebuildLoadsTheKeysOfEveryTable() {
+        // given
+        givenRows();
+        // when
+        service.rebuild();
+        // then
+        assertThat(service.mightExist(KeyedTable.SALES, 1)).isTrue();
+        assertThat(service.mightExist(KeyedTable.SALES, 2)).isTrue();
+        assertThat(service.mightExist(KeyedTable.CUSTOMERS, 3)).isTrue();
+        assertThat(service.mightExist(KeyedTable.BOOKS, TestDataProvider.HG2G_ISBN)).isTrue();
+        assertThat(service.mightExist(KeyedTable.BOOKS, TestDataProvider.DUNE_ISBN)).isFalse();
+        assertThat(service.mightExist(KeyedTable.CUSTOMERS, 1)).isFalse();
+        verify(saleRepository).findIdsAfter(eq(2), any());
+    }
+
+    @Test
+    void addedKeysMightExistUntilRemoved() {
+        // given
+        givenRows();
+        service.rebuild();
+        // when
+        service.added(KeyedTable.PRODUCTS, 42);
+        boolean afterAdded = service.mightExist(KeyedTable.PRODUCTS, 42);
+        service.removed(KeyedTable.PRODUCTS, 42);
+        // then
+        assertThat(afterAdded).isTrue();
+        assertThat(service.mightExist(KeyedTable.PRODUCTS, 42)).isFalse();
+    }
+
+    @Test
+    void mostKeysNeverAddedAreRuledOut() {
+        // given
+        givenRows();
+        service.rebuild();
+        IntStream.range(0, 1000).forEach(id -> service.added(KeyedTable.SALES, id));
+        // when
+        long falsePositives = IntStream.range(1000, 11000)
+                .filter(id -> service.mightExist(KeyedTable.SALES, id))
+                .count();
+        // then
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    /**
+     * The following pages and the pages of the other tables are empty, the default answer of the mocks.
+     */
+    private void givenRows() {
+        when(saleRepository.count()).thenReturn(2L);
+        when(saleRepository.findIdsAfter(eq(Integer.MIN_VALUE), any())).thenReturn(List.of(1, 2));
+        when(customerRepository.count()).thenReturn(1L);
+        when(customerRepository.findIdsAfter(eq(Integer.MIN_VALUE), any())).thenReturn(List.of(3));
+        when(bookRepository.count()).thenReturn(1L);
+        when(bookRepository.findIsbnsAfter(eq(""), any())).thenReturn(List.of(TestDataProvider.HG2G_ISBN));
+    }
+
+    private static class TestDataProvider {
+
+        static final String HG2G_ISBN = "978-0345391803";
+
+        static final String DUNE_ISBN = "978-0441172719";
+    }
+}
@@ -0,0 +1,37 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyPurgerTest {
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @InjectMocks
+    IdempotencyKeyPurger purger;
+
+    @Test
+    void purgeDeletesKeysOlderThanTheRetention() {
+        // given
+        ReflectionTestUtils.setField(purger, "retention", Duration.ofHours(1));
+        LocalDateTime before = LocalDateTime.now().minusHours(1);
+        // when
+        purger.purge();
+        // then
+        verify(idempotencyKeyRepository).deleteAllCreatedBefore(argThat(cutoff -> !cutoff.isBefore(before)
+                && cutoff.isBefore(before.plusMinutes(1))));
+    }
+}
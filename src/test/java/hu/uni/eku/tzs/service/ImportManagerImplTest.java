@@ -0,0 +1,213 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.ImportBatchRepository;
+import hu.uni.eku.tzs.dao.ImportCheckpointRepository;
+import hu.uni.eku.tzs.dao.entity.ImportCheckpointEntity;
+import hu.uni.eku.tzs.model.ImportProgress;
+import hu.uni.eku.tzs.model.ImportStatus;
+import hu.uni.eku.tzs.model.ImportTable;
+import hu.uni.eku.tzs.model.KeyedTable;
+import hu.uni.eku.tzs.service.exceptions.ImportAlreadyRunningException;
+import hu.uni.eku.tzs.service.exceptions.ImportFileNotFoundException;
+import hu.uni.eku.tzs.service.exceptions.ImportNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportManagerImplTest {
+
+    @Mock
+    ImportBatchRepository importBatchRepository;
+
+    @Mock
+    ImportCheckpointRepository importCheckpointRepository;
+
+    @Mock
+    SaleManager saleManager;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @TempDir
+    Path directory;
+
+    ImportManagerImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImportManagerImpl(importBatchRepository, importCheckpointRepository, saleManager,
+                existenceFilterManager, cacheManager, eventPublisher, directory.toString(), 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void importsGzippedSalesInChunks() throws Exception {
+        // given
+        writeGzipped("sales.csv.gz", "SalesID,SalesPersonID,CustomerID,ProductID,Quantity,SoldAt",
+                "1,1,1,1,3,2020-09-01T12:00", "2,1,1,1,5,", "3,1,2,1,1", "4,2,2,2,2", "5,2,2,2,7");
+        when(importCheckpointRepository.findById("SALES:sales.csv.gz")).thenReturn(Optional.empty());
+        // when
+        service.start(ImportTable.SALES, "sales.csv.gz", true);
+        ImportProgress actual = awaitFinished(ImportTable.SALES);
+        // then
+        assertThat(actual.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+        assertThat(actual.getLinesDone()).isEqualTo(5);
+        List<Object[]> rows = upsertedRows(ImportTable.SALES, 3);
+        assertThat(rows).hasSize(5);
+        assertThat(rows.get(0)).containsExactly(1, 1, 1, 1, 3, LocalDateTime.of(2020, 9, 1, 12, 0));
+        assertThat(rows.get(1)).containsExactly(2, 1, 1, 1, 5, ImportManagerImpl.UNKNOWN_SOLD_AT);
+        verify(importCheckpointRepository, atLeastOnce()).save(any());
+        verify(existenceFilterManager).added(KeyedTable.SALES, 5);
+        verify(saleManager).rebuildTotals();
+        verify(eventPublisher).publishEvent(isA(SalesImportedEvent.class));
+    }
+
+    @Test
+    void resumesAfterTheCheckpoint() throws Exception {
+        // given
+        write("customers.csv", "1,John,x,Doe", "2,Jane,,Doe", "3,\"Smith, Jr.\",x,\"The \"\"Second\"\"\"");
+        ImportCheckpointEntity checkpoint = new ImportCheckpointEntity("CUSTOMERS:customers.csv", 2,
+                LocalDateTime.now());
+        when(importCheckpointRepository.findById(checkpoint.getId())).thenReturn(Optional.of(checkpoint));
+        cacheManager.getCache(CacheConfig.CUSTOMERS).put(3, "cached before the import");
+        // when
+        service.start(ImportTable.CUSTOMERS, "customers.csv", false);
+        ImportProgress actual = awaitFinished(ImportTable.CUSTOMERS);
+        // then
+        assertThat(actual.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+        assertThat(actual.getLinesResumed()).isEqualTo(2);
+        assertThat(actual.getLinesDone()).isEqualTo(3);
+        assertThat(upsertedRows(ImportTable.CUSTOMERS, 1))
+                .containsExactly(new Object[] {3, "Smith, Jr.", "x", "The \"Second\""});
+        verify(importCheckpointRepository).delete(checkpoint);
+        verify(existenceFilterManager).added(KeyedTable.CUSTOMERS, 3);
+        assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS).get(3)).isNull();
+        verify(saleManager, never()).rebuildTotals();
+    }
+
+    @Test
+    void malformedLineFailsTheImport() throws Exception {
+        // given
+        write("products.csv", "ProductID,Name,Price", "1,Pen,1.5", "2,Pencil,cheap");
+        when(importCheckpointRepository.findById("PRODUCTS:products.csv")).thenReturn(Optional.empty());
+        // when
+        service.start(ImportTable.PRODUCTS, "products.csv", true);
+        ImportProgress actual = awaitFinished(ImportTable.PRODUCTS);
+        // then
+        assertThat(actual.getStatus()).isEqualTo(ImportStatus.FAILED);
+        assertThat(actual.getError()).contains("line 2 of products.csv");
+        assertThat(actual.getLinesDone()).isZero();
+        verify(importCheckpointRepository, never()).save(any());
+        verify(existenceFilterManager, never()).added(any(), any());
+        verify(eventPublisher).publishEvent(isA(ProductPricesChangedEvent.class));
+    }
+
+    @Test
+    void fileOutsideTheDirectoryIsRejected() {
+        // when then
+        assertThatThrownBy(() -> service.start(ImportTable.SALES, "../sales.csv", true))
+                .isInstanceOf(ImportFileNotFoundException.class);
+    }
+
+    @Test
+    void secondImportIntoTheSameTableIsRejected() throws Exception {
+        // given
+        write("employees.csv", "1,Jane,x,Doe");
+        when(importCheckpointRepository.findById("EMPLOYEES:employees.csv")).thenReturn(Optional.empty());
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS))
+                .when(importBatchRepository).upsertAll(eq(ImportTable.EMPLOYEES), any());
+        service.start(ImportTable.EMPLOYEES, "employees.csv", false);
+        // when then
+        assertThatThrownBy(() -> service.start(ImportTable.EMPLOYEES, "employees.csv", false))
+                .isInstanceOf(ImportAlreadyRunningException.class);
+        release.countDown();
+        assertThat(awaitFinished(ImportTable.EMPLOYEES).getStatus()).isEqualTo(ImportStatus.COMPLETED);
+    }
+
+    @Test
+    void readProgressOfTableNeverImported() {
+        // when then
+        assertThatThrownBy(() -> service.readProgress(ImportTable.PRODUCTS))
+                .isInstanceOf(ImportNotFoundException.class);
+    }
+
+    private void write(String fileName, String... lines) throws IOException {
+        Files.write(directory.resolve(fileName), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private void writeGzipped(String fileName, String... lines) throws IOException {
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(directory.resolve(fileName)))) {
+            output.write(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private ImportProgress awaitFinished(ImportTable table) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ImportProgress progress = service.readProgress(table);
+        while (progress.getStatus() == ImportStatus.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            progress = service.readProgress(table);
+        }
+        return progress;
+    }
+
+    /**
+     * The chunks are written by several workers, so the rows are put back in the order of their IDs.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> upsertedRows(ImportTable table, int chunks) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(importBatchRepository, times(chunks)).upsertAll(eq(table), rows.capture());
+        return rows.getAllValues().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(row -> (Integer) row[0]))
+                .collect(Collectors.toList());
+    }
+}
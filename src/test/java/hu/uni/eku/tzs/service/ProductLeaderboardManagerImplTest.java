@@ -0,0 +1,144 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.dao.SalesTotalView;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesMeasure;
+import hu.uni.eku.tzs.model.SalesTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductLeaderboardManagerImplTest {
+
+    @Mock
+    SaleRepository saleRepository;
+
+    @InjectMocks
+    ProductLeaderboardManagerImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(saleRepository.sumByProduct(Pageable.unpaged())).thenReturn(List.of(
+                TestDataProvider.getTotal(1, 10, 50),
+                TestDataProvider.getTotal(2, 4, 400),
+                TestDataProvider.getTotal(3, 6, 60)));
+        service.seed();
+    }
+
+    @Test
+    void readTopByQuantity() {
+        // when
+        List<SalesTotal> actual = service.readTop(SalesMeasure.QUANTITY, 2);
+        // then
+        assertThat(actual).containsExactly(new SalesTotal(1, 10, 50), new SalesTotal(3, 6, 60));
+    }
+
+    @Test
+    void readEveryProductByRevenue() {
+        // when
+        List<SalesTotal> actual = service.readTop(SalesMeasure.REVENUE, 0);
+        // then
+        assertThat(actual).containsExactly(
+                new SalesTotal(2, 4, 400), new SalesTotal(3, 6, 60), new SalesTotal(1, 10, 50));
+    }
+
+    @Test
+    void recordedSaleMovesItsProductUp() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(1, 3, 5))));
+        // then
+        assertThat(service.readTop(SalesMeasure.QUANTITY, 1)).containsExactly(new SalesTotal(3, 11, 110));
+    }
+
+    @Test
+    void deletedSalesMoveTheirProductDown() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(TestDataProvider.getSale(1, 1, 5)), List.of()));
+        // then
+        assertThat(service.readTop(SalesMeasure.QUANTITY, 0)).containsExactly(
+                new SalesTotal(3, 6, 60), new SalesTotal(1, 5, 25), new SalesTotal(2, 4, 400));
+    }
+
+    @Test
+    void productWithoutSalesLeavesTheLeaderboard() {
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(TestDataProvider.getSale(1, 2, 4)), List.of()));
+        // then
+        assertThat(service.readTop(SalesMeasure.REVENUE, 0))
+                .extracting(SalesTotal::getId)
+                .containsExactly(3, 1);
+    }
+
+    @Test
+    void importedSalesReseedTheLeaderboard() {
+        // given
+        when(saleRepository.sumByProduct(Pageable.unpaged())).thenReturn(List.of(TestDataProvider.getTotal(3, 7, 70)));
+        // when
+        service.onSalesImported();
+        // then
+        assertThat(service.readTop(SalesMeasure.QUANTITY, 0)).containsExactly(new SalesTotal(3, 7, 70));
+    }
+
+    @Test
+    void changedPricesReseedTheLeaderboard() {
+        // given
+        when(saleRepository.sumByProduct(Pageable.unpaged())).thenReturn(List.of(
+                TestDataProvider.getTotal(1, 10, 500),
+                TestDataProvider.getTotal(2, 4, 40),
+                TestDataProvider.getTotal(3, 6, 60)));
+        // when
+        service.onProductPricesChanged();
+        // then
+        assertThat(service.readTop(SalesMeasure.REVENUE, 1)).containsExactly(new SalesTotal(1, 10, 500));
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        private static final double[] PRICES = {0, 5, 100, 10};
+
+        public static Sale getSale(int id, int productId, int quantity) {
+            return new Sale(id,
+                    new Employee(1, "Jane", "x", "Doe"),
+                    new Customer(1, "John", "x", "Doe"),
+                    new Product(productId, "Product", PRICES[productId]),
+                    quantity,
+                    SOLD_AT);
+        }
+
+        public static SalesTotalView getTotal(int id, long quantity, double revenue) {
+            return new SalesTotalView() {
+                @Override
+                public int getId() {
+                    return id;
+                }
+
+                @Override
+                public long getQuantity() {
+                    return quantity;
+                }
+
+                @Override
+                public double getRevenue() {
+                    return revenue;
+                }
+            };
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package hu.uni.eku.tzs.service;
 
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
 import hu.uni.eku.tzs.dao.ProductRepository;
 import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.model.Product;
 import hu.uni.eku.tzs.service.exceptions.ProductAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.ProductNotFoundException;
@@ -10,6 +12,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +26,9 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +37,15 @@ class ProductManagerImplTest {
     @Mock
     ProductRepository productRepository;
 
+    @Mock
+    KeyedInsertRepository keyedInsertRepository;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     ProductManagerImpl service;
 
@@ -37,25 +53,52 @@ class ProductManagerImplTest {
     void recordProductHappyPath() throws ProductAlreadyExistsException {
         // given
         Product product = TestDataProvider.getHoverboard();
-        ProductEntity productEntity = TestDataProvider.getHoverboardEntity();
-        when(productRepository.findById(any())).thenReturn(Optional.empty());
-        when(productRepository.save(any())).thenReturn(productEntity);
+        when(existenceFilterManager.mightExist(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId)).thenReturn(false);
         // when
         Product actual = service.record(product);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(product);
+        verify(keyedInsertRepository).insertProduct(TestDataProvider.getHoverboardEntity());
+        verify(productRepository, never()).existsById(any());
+        verify(existenceFilterManager).added(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId);
+    }
+
+    @Test
+    void recordProductWithoutIdIsGivenAGeneratedOne() throws ProductAlreadyExistsException {
+        // given
+        Product product = TestDataProvider.getHoverboard();
+        product.setId(0);
+        when(productRepository.save(any())).thenReturn(TestDataProvider.getHoverboardEntity());
+        // when
+        Product actual = service.record(product);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(TestDataProvider.getHoverboard());
+        verify(existenceFilterManager, never()).mightExist(any(), any());
+        verify(existenceFilterManager).added(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId);
     }
 
     @Test
     void recordProductAlreadyExistst() throws ProductAlreadyExistsException {
         // given
         Product product = TestDataProvider.getHoverboard();
-        ProductEntity productEntity = TestDataProvider.getHoverboardEntity();
-        when(productRepository.findById(TestDataProvider.hoverboardId))
-                .thenReturn(Optional.ofNullable(productEntity));
+        when(existenceFilterManager.mightExist(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId)).thenReturn(true);
+        when(productRepository.existsById(TestDataProvider.hoverboardId)).thenReturn(true);
+        // when then
+        assertThatThrownBy(() -> service.record(product))
+                .isInstanceOf(ProductAlreadyExistsException.class);
+        verify(keyedInsertRepository, never()).insertProduct(any());
+    }
+
+    @Test
+    void recordProductRecordedConcurrently() {
+        // given
+        Product product = TestDataProvider.getHoverboard();
+        when(existenceFilterManager.mightExist(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId)).thenReturn(false);
+        doThrow(new DuplicateKeyException("Duplicate entry")).when(keyedInsertRepository).insertProduct(any());
         // when then
         assertThatThrownBy(() -> service.record(product))
                 .isInstanceOf(ProductAlreadyExistsException.class);
+        verify(existenceFilterManager, never()).added(any(), any());
     }
 
     @Test
@@ -107,12 +150,52 @@ class ProductManagerImplTest {
         // given
         Product product = TestDataProvider.getHoverboard();
         ProductEntity productEntity = TestDataProvider.getHoverboardEntity();
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(productEntity));
         when(productRepository.save(productEntity)).thenReturn(productEntity);
         // when
         Product actual = service.modify(product);
         // then
         assertThat(actual).usingRecursiveComparison()
                 .isEqualTo(product);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void modifyProductPricePublishesTheChange() {
+        // given
+        Product product = TestDataProvider.getHoverboard();
+        product.setPrice(product.getPrice() + 1);
+        ProductEntity repriced = TestDataProvider.getHoverboardEntity();
+        repriced.setPrice(product.getPrice());
+        when(productRepository.findById(product.getId()))
+                .thenReturn(Optional.of(TestDataProvider.getHoverboardEntity()));
+        when(productRepository.save(repriced)).thenReturn(repriced);
+        // when
+        service.modify(product);
+        // then
+        verify(eventPublisher).publishEvent(isA(ProductPricesChangedEvent.class));
+    }
+
+    @Test
+    void deleteByIdHappyPath() throws ProductNotFoundException {
+        // given
+        when(productRepository.deleteIfPresent(TestDataProvider.hoverboardId)).thenReturn(1);
+        // when
+        service.deleteById(TestDataProvider.hoverboardId);
+        // then
+        verify(productRepository, never()).findById(any());
+        verify(existenceFilterManager).removed(KeyedTable.PRODUCTS, TestDataProvider.hoverboardId);
+    }
+
+    @Test
+    void deleteByIdProductNotFoundException() {
+        // given
+        when(productRepository.deleteIfPresent(TestDataProvider.unknownId)).thenReturn(0);
+        // when then
+        assertThatThrownBy(() -> service.deleteById(TestDataProvider.unknownId))
+                .isInstanceOf(ProductNotFoundException.class)
+                .hasMessageContaining(String.valueOf(TestDataProvider.unknownId));
+        verify(existenceFilterManager, never()).removed(any(), any());
     }
 
     private static class TestDataProvider {
@@ -0,0 +1,131 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.QueryBudgetViolation;
+import hu.uni.eku.tzs.model.QueryStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryDiagnosticsManagerImplTest {
+
+    QueryDiagnosticsManagerImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QueryDiagnosticsManagerImpl(2, Duration.ofMinutes(1), Duration.ofMillis(100), 1000, 2, 1);
+    }
+
+    @Test
+    void fingerprintReplacesLiteralsAndCollapsesLists() {
+        // when
+        String actual = QueryDiagnosticsManagerImpl.fingerprint(
+                "select *\n  from Sales where SalesID in (?, ?, ?) and Name = 'O''Brien' and Quantity > 10");
+        // then
+        assertThat(actual).isEqualTo("select * from Sales where SalesID in (?) and Name = ? and Quantity > ?");
+    }
+
+    @Test
+    void fingerprintCollapsesMultiRowInserts() {
+        // when
+        String actual = QueryDiagnosticsManagerImpl.fingerprint(
+                "insert into Sales (SalesPersonID, Quantity) values (?, ?),(?, ?), (?, ?)");
+        // then
+        assertThat(actual).isEqualTo("insert into Sales (SalesPersonID, Quantity) values (?, ?)");
+    }
+
+    @Test
+    void fingerprintKeepsDigitsOfIdentifiers() {
+        // when
+        String actual = QueryDiagnosticsManagerImpl.fingerprint("select sale0_.SalesID from Sales sale0_");
+        // then
+        assertThat(actual).isEqualTo("select sale0_.SalesID from Sales sale0_");
+    }
+
+    @Test
+    void statementsAreAggregatedByFingerprint() {
+        // when
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 200_000_000);
+        service.statementExecuted(TestDataProvider.INSERT, 5_000_000);
+        // then
+        List<QueryStatistics> actual = service.readSlowest(0);
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).getFingerprint()).isEqualTo(TestDataProvider.SELECT_BY_ID);
+        assertThat(actual.get(0).getExecutions()).isEqualTo(2);
+        assertThat(actual.get(0).getSlowExecutions()).isEqualTo(1);
+        assertThat(actual.get(0).getTotalMillis()).isEqualTo(201);
+        assertThat(actual.get(0).getMeanMillis()).isEqualTo(100.5);
+        assertThat(actual.get(0).getMaxMillis()).isEqualTo(200);
+        assertThat(service.readSlowest(1)).hasSize(1);
+    }
+
+    @Test
+    void scopeOverTheStatementBudgetIsReported() {
+        // given
+        service.openScope();
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.openScope();
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.statementExecuted(TestDataProvider.INSERT, 1_000_000);
+        assertThat(service.closeScope("SaleManagerImpl.record")).isEqualTo(2);
+        // when
+        int statements = service.closeScope("POST /sales/");
+        // then
+        assertThat(statements).isEqualTo(3);
+        List<QueryBudgetViolation> actual = service.readViolations();
+        assertThat(actual).extracting(QueryBudgetViolation::getScope).containsExactly("POST /sales/");
+        assertThat(actual.get(0).getStatements()).isEqualTo(3);
+        assertThat(actual.get(0).getTopStatements()).hasSize(2);
+        assertThat(actual.get(0).getTopStatements().get(0)).startsWith("2 x [").endsWith(TestDataProvider.SELECT_BY_ID);
+    }
+
+    @Test
+    void onlyTheRecentViolationsAreKept() {
+        // given
+        for (int i = 1; i <= 3; i++) {
+            service.openScope();
+            service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+            service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+            service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+            service.closeScope("GET /sales/" + i);
+        }
+        // when
+        List<QueryBudgetViolation> actual = service.readViolations();
+        // then
+        assertThat(actual).extracting(QueryBudgetViolation::getScope).containsExactly("GET /sales/3", "GET /sales/2");
+    }
+
+    @Test
+    void closingWithoutAnOpenScopeIsIgnored() {
+        // when
+        service.closeScope("GET /sales/");
+        // then
+        assertThat(service.readViolations()).isEmpty();
+    }
+
+    @Test
+    void resetClearsStatisticsAndViolations() {
+        // given
+        service.openScope();
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.statementExecuted(TestDataProvider.SELECT_BY_ID, 1_000_000);
+        service.closeScope("GET /sales/");
+        // when
+        service.reset();
+        // then
+        assertThat(service.readSlowest(0)).isEmpty();
+        assertThat(service.readViolations()).isEmpty();
+    }
+
+    private static class TestDataProvider {
+
+        static final String SELECT_BY_ID = "select * from Sales where SalesID=?";
+
+        static final String INSERT = "insert into Sales (Quantity) values (?)";
+    }
+}
@@ -1,36 +1,67 @@
 package hu.uni.eku.tzs.service;
 
-import hu.uni.eku.tzs.dao.CustomerRepository;
-import hu.uni.eku.tzs.dao.EmployeeRepository;
-import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.config.CacheConfig;
+import hu.uni.eku.tzs.dao.IdempotencyKeyRepository;
+import hu.uni.eku.tzs.dao.KeyedInsertRepository;
+import hu.uni.eku.tzs.dao.SaleBatchRepository;
 import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.dao.SaleWithIdempotencyKeyView;
 import hu.uni.eku.tzs.dao.entity.CustomerEntity;
 import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.IdempotencyKeyEntity;
 import hu.uni.eku.tzs.dao.entity.ProductEntity;
 import hu.uni.eku.tzs.dao.entity.SaleEntity;
 import hu.uni.eku.tzs.model.Customer;
 import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.KeyedTable;
 import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.RecordStatus;
 import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleRecordResult;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import hu.uni.eku.tzs.service.exceptions.IdempotencyKeyConflictException;
 import hu.uni.eku.tzs.service.exceptions.SaleAlreadyExistsException;
 import hu.uni.eku.tzs.service.exceptions.SaleNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,13 +71,31 @@ class SaleManagerImplTest {
     SaleRepository saleRepository;
 
     @Mock
-    EmployeeRepository employeeRepository;
+    SaleBatchRepository saleBatchRepository;
 
     @Mock
-    CustomerRepository customerRepository;
+    SaleReferenceResolver saleReferenceResolver;
 
     @Mock
-    ProductRepository productRepository;
+    SalesRollupManager salesRollupManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Spy
+    CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    KeyedInsertRepository keyedInsertRepository;
+
+    @Mock
+    ExistenceFilterManager existenceFilterManager;
 
     @InjectMocks
     SaleManagerImpl service;
@@ -55,26 +104,202 @@ class SaleManagerImplTest {
     void recordSaleHappyPath() throws SaleAlreadyExistsException {
         // given
         Sale sale1 = TestDataProvider.getSale1();
-        SaleEntity sale1Entity = TestDataProvider.getSale1Entity();
-        when(saleRepository.findById(any())).thenReturn(Optional.empty());
-        when(saleRepository.save(any())).thenReturn(sale1Entity);
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
         // when
         Sale actual = service.record(sale1);
         // then
         assertThat(actual).usingRecursiveComparison().isEqualTo(sale1);
+        verify(keyedInsertRepository).insertSale(TestDataProvider.getSale1Entity());
+        verify(saleRepository, never()).existsById(any());
+        verify(existenceFilterManager).added(KeyedTable.SALES, sale1.getId());
+    }
+
+    @Test
+    void recordSaleWithoutIdIsGivenAGeneratedOne() throws SaleAlreadyExistsException {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        sale.setId(0);
+        when(saleReferenceResolver.resolve(List.of(sale))).thenReturn(TestDataProvider.getReferences());
+        when(saleRepository.save(any())).thenReturn(TestDataProvider.getSale1Entity());
+        // when
+        Sale actual = service.record(sale);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(TestDataProvider.getSale1());
+        verify(existenceFilterManager, never()).mightExist(any(), any());
+        verify(existenceFilterManager).added(KeyedTable.SALES, actual.getId());
+    }
+
+    @Test
+    void recordSaleWithoutSoldAtIsSoldNow() throws SaleAlreadyExistsException {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        sale1.setSoldAt(null);
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
+        LocalDateTime before = LocalDateTime.now();
+        // when
+        Sale actual = service.record(sale1);
+        // then
+        assertThat(actual.getSoldAt()).isAfterOrEqualTo(before);
     }
 
     @Test
     void recordSaleAlreadyExistsException() throws SaleAlreadyExistsException {
         // given
         Sale sale1 = TestDataProvider.getSale1();
-        SaleEntity sale1Entity = TestDataProvider.getSale1Entity();
-        when(saleRepository.findById(sale1.getId())).thenReturn(Optional.ofNullable(sale1Entity));
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(true);
+        when(saleRepository.existsById(sale1.getId())).thenReturn(true);
         // when
         assertThatThrownBy(() -> service.record(sale1))
                 .isInstanceOf(SaleAlreadyExistsException.class);
     }
 
+    @Test
+    void recordSaleRecordedConcurrently() {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
+        doThrow(new DuplicateKeyException("Duplicate entry")).when(keyedInsertRepository).insertSale(any());
+        // when then
+        assertThatThrownBy(() -> service.record(sale1))
+                .isInstanceOf(SaleAlreadyExistsException.class);
+        verify(salesRollupManager, never()).add(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void recordWithNewIdempotencyKey() throws Exception {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
+        // when
+        Sale first = service.record(sale1, "key-1");
+        Sale retried = service.record(sale1, "key-1");
+        // then
+        assertThat(first).usingRecursiveComparison().isEqualTo(sale1);
+        assertThat(retried).isSameAs(first);
+        verify(keyedInsertRepository, times(1)).insertSale(any());
+        verify(idempotencyKeyRepository).saveAndFlush(argThat(key -> key.getSaleId() == sale1.getId()));
+    }
+
+    @Test
+    void recordWithNewIdempotencyKeyIsCachedOnlyAfterCommit() throws Exception {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
+        Cache idempotencyKeys = cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            service.record(sale1, "key-1");
+            // then
+            assertThat(idempotencyKeys.get("key-1")).isNull();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(idempotencyKeys.get("key-1", Sale.class)).usingRecursiveComparison().isEqualTo(sale1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordWithRememberedIdempotencyKey() throws Exception {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        when(idempotencyKeyRepository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyKeyEntity("key-1", sale1.getId(), LocalDateTime.now())));
+        when(saleRepository.findById(sale1.getId())).thenReturn(Optional.of(TestDataProvider.getSale1Entity()));
+        // when
+        Sale actual = service.record(new Sale(), "key-1");
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(sale1);
+        verify(saleRepository, never()).save(any());
+    }
+
+    @Test
+    void recordWithIdempotencyKeyOfDeletedSale() {
+        // given
+        when(idempotencyKeyRepository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyKeyEntity("key-1", 1, LocalDateTime.now())));
+        when(saleRepository.findById(1)).thenReturn(Optional.empty());
+        // when then
+        assertThatThrownBy(() -> service.record(new Sale(), "key-1"))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void recordWithConcurrentlyUsedIdempotencyKey() {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        when(existenceFilterManager.mightExist(KeyedTable.SALES, sale1.getId())).thenReturn(false);
+        when(saleReferenceResolver.resolve(List.of(sale1))).thenReturn(TestDataProvider.getReferences());
+        when(idempotencyKeyRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("dup"));
+        // when then
+        assertThatThrownBy(() -> service.record(sale1, "key-1"))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void recordAllHappyPath() {
+        // given
+        Sale sale1 = TestDataProvider.getSale1();
+        Sale sale2 = TestDataProvider.getSale2();
+        Sale incomplete = new Sale(0, null, TestDataProvider.getJohnDoeModel(), null, 1, null);
+        Sale generated = TestDataProvider.getSale2();
+        generated.setId(0);
+        when(saleRepository.findExistingIds(any())).thenReturn(List.of(sale1.getId()));
+        when(saleReferenceResolver.resolve(List.of(sale2, generated))).thenReturn(TestDataProvider.getReferences());
+        doAnswer(invocation -> {
+            List<SaleEntity> entities = invocation.getArgument(0);
+            entities.get(0).setId(3);
+            return null;
+        }).when(saleBatchRepository).insertAll(anyList());
+        // when
+        List<SaleRecordResult> actual = service.recordAll(List.of(sale1, sale2, incomplete, generated));
+        // then
+        assertThat(actual.get(0).getStatus()).isEqualTo(RecordStatus.ALREADY_EXISTS);
+        assertThat(actual.get(1).getStatus()).isEqualTo(RecordStatus.RECORDED);
+        assertThat(actual.get(1).getSale()).usingRecursiveComparison().isEqualTo(sale2);
+        assertThat(actual.get(2).getStatus()).isEqualTo(RecordStatus.REJECTED);
+        assertThat(actual.get(3).getStatus()).isEqualTo(RecordStatus.RECORDED);
+        assertThat(actual.get(3).getSale().getId()).isEqualTo(3);
+        verify(keyedInsertRepository).insertSales(argThat(entities ->
+                entities.size() == 1 && entities.get(0).getId() == sale2.getId()));
+        verify(existenceFilterManager).added(KeyedTable.SALES, sale2.getId());
+        verify(existenceFilterManager).added(KeyedTable.SALES, 3);
+    }
+
+    @Test
+    void recordAllReportsIdsGivenTwiceInTheBatch() {
+        // given
+        Sale sale2 = TestDataProvider.getSale2();
+        when(saleRepository.findExistingIds(any())).thenReturn(List.of());
+        when(saleReferenceResolver.resolve(List.of(sale2))).thenReturn(TestDataProvider.getReferences());
+        // when
+        List<SaleRecordResult> actual = service.recordAll(List.of(sale2, TestDataProvider.getSale2()));
+        // then
+        assertThat(actual.get(0).getStatus()).isEqualTo(RecordStatus.RECORDED);
+        assertThat(actual.get(1).getStatus()).isEqualTo(RecordStatus.ALREADY_EXISTS);
+        verify(keyedInsertRepository).insertSales(argThat(entities -> entities.size() == 1));
+    }
+
+    @Test
+    void recordAllOfNewSalesLooksUpNoIds() {
+        // given
+        Sale incomplete = new Sale(0, null, TestDataProvider.getJohnDoeModel(), null, 1, null);
+        // when
+        List<SaleRecordResult> actual = service.recordAll(List.of(incomplete));
+        // then
+        assertThat(actual.get(0).getStatus()).isEqualTo(RecordStatus.REJECTED);
+        verify(saleRepository, never()).findExistingIds(any());
+    }
+
     @Test
     void readByIdHappyPath() throws SaleNotFoundException {
         // given
@@ -104,20 +329,109 @@ class SaleManagerImplTest {
                 TestDataProvider.getSale1Entity(),
                 TestDataProvider.getSale2Entity()
         );
-        Page<SaleEntity> page = new PageImpl<>(saleEntities);
         Collection<Sale> expectedSales = List.of(
                 TestDataProvider.getSale1(),
                 TestDataProvider.getSale2()
         );
-        when(saleRepository.findAll(isA(Pageable.class))).thenReturn(page);
+        when(saleRepository.findAllByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 100))).thenReturn(saleEntities);
         // when
-        Collection<Sale> actualSales = service.readAll();
+        Collection<Sale> actualSales = service.readAll(0, 100);
         // then
         assertThat(actualSales)
                 .usingRecursiveComparison()
                 .isEqualTo(expectedSales);
     }
 
+    @Test
+    void readAllOfCustomerHappyPath() {
+        // given
+        when(saleRepository.findAllByCustomerIdAndIdGreaterThanOrderByIdAsc(1, 1, PageRequest.of(0, 10)))
+                .thenReturn(List.of(TestDataProvider.getSale2Entity()));
+        // when
+        Collection<Sale> actualSales = service.readAllOfCustomer(1, 1, 10);
+        // then
+        assertThat(actualSales)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(TestDataProvider.getSale2()));
+    }
+
+    @Test
+    void readAllSoldBetweenHappyPath() {
+        // given
+        LocalDateTime from = TestDataProvider.SOLD_AT;
+        LocalDateTime to = from.plusDays(1);
+        when(saleRepository.findAllSoldBetween(from, to, 1, PageRequest.of(0, 10)))
+                .thenReturn(List.of(TestDataProvider.getSale2Entity()));
+        // when
+        Collection<Sale> actualSales = service.readAllSoldBetween(from, to, 1, 10);
+        // then
+        assertThat(actualSales)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(TestDataProvider.getSale2()));
+    }
+
+    @Test
+    void readAllAfterCursorHappyPath() {
+        // given
+        List<SaleEntity> saleEntities = List.of(TestDataProvider.getSale2Entity());
+        Collection<Sale> expectedSales = List.of(TestDataProvider.getSale2());
+        when(saleRepository.findAllByIdGreaterThanOrderByIdAsc(eq(1), isA(Pageable.class)))
+                .thenReturn(saleEntities);
+        // when
+        Collection<Sale> actualSales = service.readAll(1, 10);
+        // then
+        assertThat(actualSales)
+                .usingRecursiveComparison()
+                .isEqualTo(expectedSales);
+    }
+
+    @Test
+    void exportAllHappyPath() {
+        // given
+        SaleEntity sale1Entity = TestDataProvider.getSale1Entity();
+        SaleEntity sale2Entity = TestDataProvider.getSale2Entity();
+        when(saleRepository.streamAll()).thenReturn(Stream.of(sale1Entity, sale2Entity));
+        Collection<Sale> actualSales = new ArrayList<>();
+        // when
+        service.exportAll(actualSales::add);
+        // then
+        assertThat(actualSales)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(TestDataProvider.getSale1(), TestDataProvider.getSale2()));
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    void exportAllClearsThePersistenceContextEveryChunk() {
+        // given
+        SaleEntity sale1Entity = TestDataProvider.getSale1Entity();
+        when(saleRepository.streamAll())
+                .thenReturn(Stream.generate(() -> sale1Entity).limit(2L * SaleManagerImpl.EXPORT_CHUNK_SIZE + 1));
+        // when
+        service.exportAll(sale -> { });
+        // then
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void readTotalsHappyPath() {
+        // given
+        List<SalesTotal> expected = List.of(new SalesTotal(1, 8, 792));
+        when(salesRollupManager.readTotals(SalesDimension.PRODUCT, 1)).thenReturn(expected);
+        // when
+        List<SalesTotal> actual = service.readTotals(SalesDimension.PRODUCT, 1);
+        // then
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void rebuildTotalsHappyPath() {
+        // when
+        service.rebuildTotals();
+        // then
+        verify(salesRollupManager).rebuild();
+    }
+
     @Test
     void modifySaleHappyPath() {
         // given
@@ -129,9 +443,103 @@ class SaleManagerImplTest {
         // then
         assertThat(actual).usingRecursiveComparison()
                 .isEqualTo(sale);
+        verify(salesRollupManager).add(List.of(sale));
+    }
+
+    @Test
+    void modifySaleReplacesPreviousInRollups() {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        SaleEntity saleEntity = TestDataProvider.getSale1Entity();
+        SaleEntity previousEntity = TestDataProvider.getSale1Entity();
+        previousEntity.setQuantity(1);
+        when(saleRepository.findById(sale.getId())).thenReturn(Optional.of(previousEntity));
+        when(saleRepository.save(saleEntity)).thenReturn(saleEntity);
+        // when
+        service.modify(sale);
+        // then
+        verify(salesRollupManager).subtract(List.of(new Sale(1, TestDataProvider.getJaneDoeModel(),
+                TestDataProvider.getJohnDoeModel(), TestDataProvider.getHoverboardModel(), 1, TestDataProvider.SOLD_AT)));
+        verify(salesRollupManager).add(List.of(sale));
+    }
+
+    @Test
+    void deleteSaleHappyPath() {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        // when
+        service.delete(sale);
+        // then
+        verify(saleRepository).delete(TestDataProvider.getSale1Entity());
+        verify(existenceFilterManager).removed(KeyedTable.SALES, sale.getId());
+        verify(salesRollupManager).subtract(List.of(sale));
+        verify(eventPublisher).publishEvent(argThat((SalesChangedEvent event) ->
+                event.getRemoved().equals(List.of(sale)) && event.getAdded().isEmpty()));
+    }
+
+    @Test
+    void deleteByIdHappyPath() throws SaleNotFoundException {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        when(saleRepository.findWithIdempotencyKeysById(sale.getId()))
+                .thenReturn(List.of(TestDataProvider.getSale1WithIdempotencyKey(null)));
+        when(saleRepository.deleteIfPresent(sale.getId())).thenReturn(1);
+        // when
+        service.deleteById(sale.getId());
+        // then
+        verify(saleRepository, never()).delete(any());
+        verify(idempotencyKeyRepository, never()).findAllIdsBySaleId(anyInt());
+        verify(existenceFilterManager).removed(KeyedTable.SALES, sale.getId());
+        verify(salesRollupManager).subtract(List.of(sale));
+        verify(eventPublisher).publishEvent(argThat((SalesChangedEvent event) ->
+                event.getRemoved().equals(List.of(sale)) && event.getAdded().isEmpty()));
+    }
+
+    @Test
+    void deleteByIdForgetsTheIdempotencyKeysOfTheSale() throws SaleNotFoundException {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        Cache idempotencyKeys = cacheManager.getCache(CacheConfig.IDEMPOTENCY_KEYS);
+        idempotencyKeys.put("key-1", sale);
+        when(saleRepository.findWithIdempotencyKeysById(sale.getId()))
+                .thenReturn(List.of(TestDataProvider.getSale1WithIdempotencyKey("key-1")));
+        when(saleRepository.deleteIfPresent(sale.getId())).thenReturn(1);
+        // when
+        service.deleteById(sale.getId());
+        // then
+        assertThat(idempotencyKeys.get("key-1")).isNull();
+    }
+
+    @Test
+    void deleteByIdSaleNotFoundException() {
+        // given
+        when(saleRepository.findWithIdempotencyKeysById(TestDataProvider.unknownId)).thenReturn(List.of());
+        // when then
+        assertThatThrownBy(() -> service.deleteById(TestDataProvider.unknownId))
+                .isInstanceOf(SaleNotFoundException.class)
+                .hasMessageContaining(String.valueOf(TestDataProvider.unknownId));
+        verify(saleRepository, never()).deleteIfPresent(TestDataProvider.unknownId);
+        verify(salesRollupManager, never()).subtract(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void deleteByIdOfSaleDeletedConcurrently() {
+        // given
+        Sale sale = TestDataProvider.getSale1();
+        when(saleRepository.findWithIdempotencyKeysById(sale.getId()))
+                .thenReturn(List.of(TestDataProvider.getSale1WithIdempotencyKey(null)));
+        when(saleRepository.deleteIfPresent(sale.getId())).thenReturn(0);
+        // when then
+        assertThatThrownBy(() -> service.deleteById(sale.getId()))
+                .isInstanceOf(SaleNotFoundException.class);
+        verify(salesRollupManager, never()).subtract(any());
     }
 
     private static class TestDataProvider {
+
+        static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
         private static final int unknownId = -1;
 
         public static Employee getJaneDoeModel() {
@@ -172,8 +580,15 @@ class SaleManagerImplTest {
                     .build();
         }
 
+        public static SaleReferenceResolver.References getReferences() {
+            return new SaleReferenceResolver.References(
+                    Map.of(1, getJaneDoeEntity()),
+                    Map.of(1, getJohnDoeEntity()),
+                    Map.of(1, getHoverboardEntity()));
+        }
+
         public static Sale getSale1() {
-            return new Sale(1, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 3);
+            return new Sale(1, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 3, SOLD_AT);
         }
 
         public static SaleEntity getSale1Entity() {
@@ -183,11 +598,27 @@ class SaleManagerImplTest {
                     .customer(getJohnDoeEntity())
                     .product(getHoverboardEntity())
                     .quantity(3)
+                    .soldAt(SOLD_AT)
                     .build();
         }
 
+        public static SaleWithIdempotencyKeyView getSale1WithIdempotencyKey(String idempotencyKey) {
+            SaleEntity sale = getSale1Entity();
+            return new SaleWithIdempotencyKeyView() {
+                @Override
+                public SaleEntity getSale() {
+                    return sale;
+                }
+
+                @Override
+                public String getIdempotencyKey() {
+                    return idempotencyKey;
+                }
+            };
+        }
+
         public static Sale getSale2() {
-            return new Sale(2, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 5);
+            return new Sale(2, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 5, SOLD_AT);
         }
 
         public static SaleEntity getSale2Entity() {
@@ -197,6 +628,7 @@ class SaleManagerImplTest {
                     .customer(getJohnDoeEntity())
                     .product(getHoverboardEntity())
                     .quantity(5)
+                    .soldAt(SOLD_AT)
                     .build();
         }
     }
@@ -0,0 +1,170 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.CustomerRepository;
+import hu.uni.eku.tzs.dao.EmployeeRepository;
+import hu.uni.eku.tzs.dao.ProductRepository;
+import hu.uni.eku.tzs.dao.ReferenceUpsertRepository;
+import hu.uni.eku.tzs.dao.entity.CustomerEntity;
+import hu.uni.eku.tzs.dao.entity.EmployeeEntity;
+import hu.uni.eku.tzs.dao.entity.ProductEntity;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaleReferenceResolverTest {
+
+    @Mock
+    EmployeeRepository employeeRepository;
+
+    @Mock
+    CustomerRepository customerRepository;
+
+    @Mock
+    ProductRepository productRepository;
+
+    @Mock
+    ReferenceUpsertRepository referenceUpsertRepository;
+
+    @Spy
+    CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @InjectMocks
+    SaleReferenceResolver resolver;
+
+    @Test
+    void resolveLooksUpEveryReferenceOnce() {
+        // given
+        Sale sale1 = TestDataProvider.getSale(1);
+        Sale sale2 = TestDataProvider.getSale(2);
+        when(employeeRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJaneDoeEntity()));
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJohnDoeEntity()));
+        when(productRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getHoverboardEntity()));
+        // when
+        SaleReferenceResolver.References actual = resolver.resolve(List.of(sale1, sale2));
+        // then
+        assertThat(actual.salesPersonOf(sale2)).isEqualTo(TestDataProvider.getJaneDoeEntity());
+        assertThat(actual.customerOf(sale2)).isEqualTo(TestDataProvider.getJohnDoeEntity());
+        assertThat(actual.productOf(sale2)).isEqualTo(TestDataProvider.getHoverboardEntity());
+        verify(referenceUpsertRepository, never()).upsertEmployees(any());
+        verify(referenceUpsertRepository, never()).upsertCustomers(any());
+        verify(referenceUpsertRepository, never()).upsertProducts(any());
+    }
+
+    @Test
+    void resolveServesCachedReferencesWithoutQuery() {
+        // given
+        Sale sale = TestDataProvider.getSale(1);
+        when(employeeRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJaneDoeEntity()));
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJohnDoeEntity()));
+        when(productRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getHoverboardEntity()));
+        resolver.resolve(List.of(sale));
+        // when
+        SaleReferenceResolver.References actual = resolver.resolve(List.of(sale));
+        // then
+        assertThat(actual.salesPersonOf(sale)).isEqualTo(TestDataProvider.getJaneDoeEntity());
+        assertThat(actual.customerOf(sale)).isEqualTo(TestDataProvider.getJohnDoeEntity());
+        assertThat(actual.productOf(sale)).isEqualTo(TestDataProvider.getHoverboardEntity());
+        verify(employeeRepository, times(1)).findAllById(any());
+        verify(customerRepository, times(1)).findAllById(any());
+        verify(productRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void resolveCreatesMissingReferences() {
+        // given
+        Sale sale = TestDataProvider.getSale(1);
+        when(employeeRepository.findAllById(Set.of(1))).thenReturn(List.of());
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of());
+        when(productRepository.findAllById(Set.of(1))).thenReturn(List.of());
+        // when
+        SaleReferenceResolver.References actual = resolver.resolve(List.of(sale));
+        // then
+        assertThat(actual.salesPersonOf(sale)).isEqualTo(TestDataProvider.getJaneDoeEntity());
+        assertThat(actual.customerOf(sale)).isEqualTo(TestDataProvider.getJohnDoeEntity());
+        assertThat(actual.productOf(sale)).isEqualTo(TestDataProvider.getHoverboardEntity());
+        verify(referenceUpsertRepository).upsertEmployees(List.of(TestDataProvider.getJaneDoeEntity()));
+        verify(referenceUpsertRepository).upsertCustomers(List.of(TestDataProvider.getJohnDoeEntity()));
+        verify(referenceUpsertRepository).upsertProducts(List.of(TestDataProvider.getHoverboardEntity()));
+    }
+
+    @Test
+    void resolveSavesReferencesWithoutId() {
+        // given
+        Product newProduct = new Product(0, "Portal Gun", 42);
+        Sale sale = new Sale(1, TestDataProvider.getJaneDoeModel(), TestDataProvider.getJohnDoeModel(), newProduct, 1, null);
+        ProductEntity savedProduct = ProductEntity.builder().id(7).name("Portal Gun").price(42).build();
+        when(employeeRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJaneDoeEntity()));
+        when(customerRepository.findAllById(Set.of(1))).thenReturn(List.of(TestDataProvider.getJohnDoeEntity()));
+        when(productRepository.save(any())).thenReturn(savedProduct);
+        // when
+        SaleReferenceResolver.References actual = resolver.resolve(List.of(sale));
+        // then
+        assertThat(newProduct.getId()).isEqualTo(7);
+        assertThat(actual.productOf(sale)).isEqualTo(savedProduct);
+    }
+
+    private static class TestDataProvider {
+
+        public static Employee getJaneDoeModel() {
+            return new Employee(1, "Jane", "x", "Doe");
+        }
+
+        public static EmployeeEntity getJaneDoeEntity() {
+            return EmployeeEntity.builder()
+                    .id(1)
+                    .firstName("Jane")
+                    .middleInitial("x")
+                    .lastName("Doe")
+                    .build();
+        }
+
+        public static Customer getJohnDoeModel() {
+            return new Customer(1, "John", "x", "Doe");
+        }
+
+        public static CustomerEntity getJohnDoeEntity() {
+            return CustomerEntity.builder()
+                    .id(1)
+                    .firstName("John")
+                    .middleInitial("x")
+                    .lastName("Doe")
+                    .build();
+        }
+
+        public static Product getHoverboardModel() {
+            return new Product(1, "Hoverboard", 99);
+        }
+
+        public static ProductEntity getHoverboardEntity() {
+            return ProductEntity.builder()
+                    .id(1)
+                    .name("Hoverboard")
+                    .price(99)
+                    .build();
+        }
+
+        public static Sale getSale(int id) {
+            return new Sale(id, getJaneDoeModel(), getJohnDoeModel(), getHoverboardModel(), 3, null);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SaleChange;
+import hu.uni.eku.tzs.model.SaleChangeType;
+import hu.uni.eku.tzs.service.exceptions.TooManySubscribersException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class SaleStreamManagerImplTest {
+
+    private final SaleStreamManagerImpl service = new SaleStreamManagerImpl(3, 2);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void subscribersReceiveEveryKindOfChange() throws Exception {
+        // given
+        RecordingListener listener = new RecordingListener();
+        service.subscribe(listener);
+        Sale previous = TestDataProvider.getSale(1, 3);
+        Sale modified = TestDataProvider.getSale(1, 5);
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(previous)));
+        service.onSalesChanged(new SalesChangedEvent(List.of(previous), List.of(modified)));
+        service.onSalesChanged(new SalesChangedEvent(List.of(modified), List.of()));
+        // then
+        assertThat(listener.next()).isEqualTo(new SaleChange(SaleChangeType.RECORDED, previous));
+        assertThat(listener.next()).isEqualTo(new SaleChange(SaleChangeType.MODIFIED, modified));
+        assertThat(listener.next()).isEqualTo(new SaleChange(SaleChangeType.DELETED, modified));
+    }
+
+    @Test
+    void slowSubscriberIsDropped() throws Exception {
+        // given
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onChange(SaleChange change) throws IOException {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        service.subscribe(listener);
+        // when
+        for (int id = 1; id <= 5; id++) {
+            service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(id, 1))));
+        }
+        // then
+        assertThat(listener.dropped.await(1, TimeUnit.SECONDS)).isTrue();
+        stalled.countDown();
+    }
+
+    @Test
+    void batchLargerThanTheBufferIsDelivered() throws Exception {
+        // given
+        RecordingListener listener = new RecordingListener();
+        service.subscribe(listener);
+        List<Sale> batch = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            batch.add(TestDataProvider.getSale(id, 1));
+        }
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(), batch));
+        // then
+        for (Sale sale : batch) {
+            assertThat(listener.next()).isEqualTo(new SaleChange(SaleChangeType.RECORDED, sale));
+        }
+        assertThat(listener.dropped.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void failingSubscriberIsDropped() throws Exception {
+        // given
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onChange(SaleChange change) throws IOException {
+                throw new IOException("broken pipe");
+            }
+        };
+        service.subscribe(listener);
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(1, 1))));
+        // then
+        assertThat(listener.dropped.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void subscribersAreLimited() throws Exception {
+        // given
+        service.subscribe(new RecordingListener());
+        SaleSubscription second = service.subscribe(new RecordingListener());
+        // when then
+        assertThatThrownBy(() -> service.subscribe(new RecordingListener()))
+                .isInstanceOf(TooManySubscribersException.class);
+        second.close();
+        service.subscribe(new RecordingListener());
+    }
+
+    private static class RecordingListener implements SaleChangeListener {
+
+        private final BlockingQueue<SaleChange> changes = new LinkedBlockingQueue<>();
+
+        private final CountDownLatch dropped = new CountDownLatch(1);
+
+        @Override
+        public void onChange(SaleChange change) throws IOException {
+            changes.add(change);
+        }
+
+        @Override
+        public void onDropped(String reason) {
+            dropped.countDown();
+        }
+
+        SaleChange next() throws InterruptedException {
+            return changes.poll(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static Sale getSale(int id, int quantity) {
+            return new Sale(id,
+                    new Employee(1, "Jane", "x", "Doe"),
+                    new Customer(1, "John", "x", "Doe"),
+                    new Product(1, "Hoverboard", 99),
+                    quantity,
+                    SOLD_AT);
+        }
+    }
+}
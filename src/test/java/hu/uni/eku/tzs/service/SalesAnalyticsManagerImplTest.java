@@ -0,0 +1,183 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesFilter;
+import hu.uni.eku.tzs.model.SalesTotal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class SalesAnalyticsManagerImplTest {
+
+    private static final SalesFilter ANY = new SalesFilter(0, 0, 0, 0);
+
+    @Mock
+    SaleManager saleManager;
+
+    @InjectMocks
+    SalesAnalyticsManagerImpl service;
+
+    @Test
+    void readTotalsByEachDimension() {
+        // given
+        load(TestDataProvider.getSale(1, 1, 2, 3, 4), TestDataProvider.getSale(2, 2, 2, 1, 1),
+                TestDataProvider.getSale(3, 1, 3, 3, 2));
+        // when
+        List<SalesTotal> byProduct = service.readTotals(SalesDimension.PRODUCT, ANY, 0);
+        List<SalesTotal> bySalesPerson = service.readTotals(SalesDimension.SALES_PERSON, ANY, 0);
+        List<SalesTotal> byCustomer = service.readTotals(SalesDimension.CUSTOMER, ANY, 0);
+        // then
+        assertThat(service.isReady()).isTrue();
+        assertThat(byProduct).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(3, 6, 180), new SalesTotal(1, 1, 10)));
+        assertThat(bySalesPerson).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(1, 6, 180), new SalesTotal(2, 1, 10)));
+        assertThat(byCustomer).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(2, 5, 130), new SalesTotal(3, 2, 60)));
+    }
+
+    @Test
+    void readTotalsAppliesFilterAndTop() {
+        // given
+        load(TestDataProvider.getSale(1, 1, 2, 3, 4), TestDataProvider.getSale(2, 2, 2, 1, 1),
+                TestDataProvider.getSale(3, 1, 3, 3, 2));
+        // when
+        List<SalesTotal> actual = service.readTotals(SalesDimension.CUSTOMER, new SalesFilter(1, 0, 3, 3), 1);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(new SalesTotal(2, 4, 120)));
+    }
+
+    @Test
+    void readTotalsScansLargeTablesInParallelChunks() {
+        // given
+        load(IntStream.rangeClosed(1, 200_000)
+                .mapToObj(id -> TestDataProvider.getSale(id, id % 2 + 1, 1, 1, 1))
+                .toArray(Sale[]::new));
+        // when
+        List<SalesTotal> actual = service.readTotals(SalesDimension.SALES_PERSON, ANY, 0);
+        // then
+        assertThat(actual).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(1, 100_000, 1_000_000), new SalesTotal(2, 100_000, 1_000_000)));
+    }
+
+    @Test
+    void changesAreAppliedToTheColumns() {
+        // given
+        load(TestDataProvider.getSale(1, 1, 2, 3, 4), TestDataProvider.getSale(3, 1, 3, 3, 2));
+        // when
+        service.onSalesChanged(new SalesChangedEvent(List.of(TestDataProvider.getSale(3, 1, 3, 3, 2)), List.of()));
+        service.onSalesChanged(new SalesChangedEvent(List.of(TestDataProvider.getSale(1, 1, 2, 3, 4)),
+                List.of(TestDataProvider.getSale(1, 1, 2, 3, 5))));
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(2, 2, 2, 1, 1))));
+        // then
+        assertThat(service.readTotals(SalesDimension.PRODUCT, ANY, 0)).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(3, 5, 150), new SalesTotal(1, 1, 10)));
+    }
+
+    @Test
+    void changesDuringReloadAreReplayed() {
+        // given
+        doAnswer(invocation -> {
+            Consumer<Sale> consumer = invocation.getArgument(0);
+            consumer.accept(TestDataProvider.getSale(1, 1, 2, 3, 4));
+            service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(2, 2, 2, 1, 1))));
+            return null;
+        }).when(saleManager).exportAll(any());
+        // when
+        service.reload();
+        // then
+        assertThat(service.readTotals(SalesDimension.PRODUCT, ANY, 0)).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(3, 4, 120), new SalesTotal(1, 1, 10)));
+    }
+
+    @Test
+    void importedSalesReloadTheColumns() {
+        // given
+        load(TestDataProvider.getSale(1, 1, 2, 3, 4));
+        doAnswer(invocation -> {
+            Consumer<Sale> consumer = invocation.getArgument(0);
+            consumer.accept(TestDataProvider.getSale(1, 1, 2, 3, 4));
+            consumer.accept(TestDataProvider.getSale(2, 2, 2, 1, 1));
+            return null;
+        }).when(saleManager).exportAll(any());
+        // when
+        service.onSalesImported();
+        // then
+        assertThat(service.readTotals(SalesDimension.PRODUCT, ANY, 0)).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(3, 4, 120), new SalesTotal(1, 1, 10)));
+    }
+
+    @Test
+    void changedPricesReloadTheColumns() {
+        // given
+        load(TestDataProvider.getSale(1, 1, 2, 3, 4));
+        Sale repriced = TestDataProvider.getSale(1, 1, 2, 3, 4);
+        repriced.getProduct().setPrice(50);
+        doAnswer(invocation -> {
+            Consumer<Sale> consumer = invocation.getArgument(0);
+            consumer.accept(repriced);
+            return null;
+        }).when(saleManager).exportAll(any());
+        // when
+        service.onProductPricesChanged();
+        // then
+        assertThat(service.readTotals(SalesDimension.PRODUCT, ANY, 0)).usingRecursiveComparison()
+                .isEqualTo(List.of(new SalesTotal(3, 4, 200)));
+    }
+
+    @Test
+    void failedReloadKeepsColumnsNotReady() {
+        // given
+        doThrow(new IllegalStateException()).when(saleManager).exportAll(any());
+        // when
+        assertThatThrownBy(() -> service.onApplicationReady()).isInstanceOf(IllegalStateException.class);
+        service.onSalesChanged(new SalesChangedEvent(List.of(), List.of(TestDataProvider.getSale(2, 2, 2, 1, 1))));
+        // then
+        assertThat(service.isReady()).isFalse();
+    }
+
+    private void load(Sale... sales) {
+        List<Sale> unordered = new ArrayList<>(List.of(sales));
+        // out-of-order IDs must still end up in key order
+        unordered.add(0, unordered.remove(unordered.size() - 1));
+        doAnswer(invocation -> {
+            Consumer<Sale> consumer = invocation.getArgument(0);
+            unordered.forEach(consumer);
+            return null;
+        }).when(saleManager).exportAll(any());
+        service.reload();
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static Sale getSale(int id, int salesPersonId, int customerId, int productId, int quantity) {
+            return new Sale(id,
+                    new Employee(salesPersonId, "Jane", "x", "Doe"),
+                    new Customer(customerId, "John", "x", "Doe"),
+                    new Product(productId, "Product", productId * 10),
+                    quantity,
+                    SOLD_AT);
+        }
+    }
+}
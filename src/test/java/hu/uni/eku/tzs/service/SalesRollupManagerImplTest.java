@@ -0,0 +1,142 @@
+package hu.uni.eku.tzs.service;
+
+import hu.uni.eku.tzs.dao.SaleRepository;
+import hu.uni.eku.tzs.dao.SalesRollupBatchRepository;
+import hu.uni.eku.tzs.dao.SalesRollupRepository;
+import hu.uni.eku.tzs.dao.SalesTotalView;
+import hu.uni.eku.tzs.dao.entity.SalesRollupEntity;
+import hu.uni.eku.tzs.dao.entity.SalesRollupKey;
+import hu.uni.eku.tzs.model.Customer;
+import hu.uni.eku.tzs.model.Employee;
+import hu.uni.eku.tzs.model.Product;
+import hu.uni.eku.tzs.model.Sale;
+import hu.uni.eku.tzs.model.SalesDimension;
+import hu.uni.eku.tzs.model.SalesTotal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupManagerImplTest {
+
+    @Mock
+    SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    SalesRollupBatchRepository salesRollupBatchRepository;
+
+    @Mock
+    SaleRepository saleRepository;
+
+    @InjectMocks
+    SalesRollupManagerImpl service;
+
+    @Test
+    void addSumsDeltasPerRollupInKeyOrder() {
+        // given
+        List<Sale> sales = List.of(TestDataProvider.getSale(1, 3), TestDataProvider.getSale(2, 5));
+        // when
+        service.add(sales);
+        // then
+        verify(salesRollupBatchRepository).addAll(List.of(
+                TestDataProvider.getRollup(SalesDimension.CUSTOMER, 8, 792),
+                TestDataProvider.getRollup(SalesDimension.PRODUCT, 8, 792),
+                TestDataProvider.getRollup(SalesDimension.SALES_PERSON, 8, 792)));
+    }
+
+    @Test
+    void subtractNegatesDeltas() {
+        // given
+        List<Sale> sales = List.of(TestDataProvider.getSale(1, 3));
+        // when
+        service.subtract(sales);
+        // then
+        verify(salesRollupBatchRepository).addAll(List.of(
+                TestDataProvider.getRollup(SalesDimension.CUSTOMER, -3, -297),
+                TestDataProvider.getRollup(SalesDimension.PRODUCT, -3, -297),
+                TestDataProvider.getRollup(SalesDimension.SALES_PERSON, -3, -297)));
+    }
+
+    @Test
+    void readTotalsHappyPath() {
+        // given
+        when(salesRollupRepository.findAllByIdDimensionOrderByRevenueDesc("CUSTOMER", PageRequest.of(0, 1)))
+                .thenReturn(List.of(TestDataProvider.getRollup(SalesDimension.CUSTOMER, 8, 792)));
+        // when
+        List<SalesTotal> actual = service.readTotals(SalesDimension.CUSTOMER, 1);
+        // then
+        assertThat(actual).usingRecursiveComparison().isEqualTo(List.of(new SalesTotal(1, 8, 792)));
+    }
+
+    @Test
+    void rebuildRecomputesEveryRollup() {
+        // given
+        when(saleRepository.sumByProduct(Pageable.unpaged())).thenReturn(List.of(TestDataProvider.getTotal()));
+        when(saleRepository.sumBySalesPerson(Pageable.unpaged())).thenReturn(List.of(TestDataProvider.getTotal()));
+        when(saleRepository.sumByCustomer(Pageable.unpaged())).thenReturn(List.of(TestDataProvider.getTotal()));
+        // when
+        service.rebuild();
+        // then
+        verify(salesRollupRepository).deleteAllInBatch();
+        verify(salesRollupBatchRepository).addAll(List.of(
+                TestDataProvider.getRollup(SalesDimension.PRODUCT, 8, 792),
+                TestDataProvider.getRollup(SalesDimension.SALES_PERSON, 8, 792),
+                TestDataProvider.getRollup(SalesDimension.CUSTOMER, 8, 792)));
+    }
+
+    @Test
+    void changedPricesRebuildTheRollups() {
+        // when
+        service.onProductPricesChanged();
+        // then
+        verify(salesRollupRepository).deleteAllInBatch();
+    }
+
+    private static class TestDataProvider {
+
+        private static final LocalDateTime SOLD_AT = LocalDateTime.of(2020, 9, 1, 12, 0);
+
+        public static Sale getSale(int id, int quantity) {
+            return new Sale(id,
+                    new Employee(1, "Jane", "x", "Doe"),
+                    new Customer(1, "John", "x", "Doe"),
+                    new Product(1, "Hoverboard", 99),
+                    quantity,
+                    SOLD_AT);
+        }
+
+        public static SalesRollupEntity getRollup(SalesDimension dimension, long quantity, double revenue) {
+            return new SalesRollupEntity(new SalesRollupKey(dimension.name(), 1), quantity, revenue);
+        }
+
+        public static SalesTotalView getTotal() {
+            return new SalesTotalView() {
+                @Override
+                public int getId() {
+                    return 1;
+                }
+
+                @Override
+                public long getQuantity() {
+                    return 8;
+                }
+
+                @Override
+                public double getRevenue() {
+                    return 792;
+                }
+            };
+        }
+    }
+}